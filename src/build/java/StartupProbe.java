@@ -0,0 +1,168 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures cold start: launches the application several times per variant
+ * and records, from process launch, when Tomcat accepts requests and when the
+ * first export has been downloaded, plus the resident memory at that point.
+ * <p>
+ * Run by the {@code fast-startup} build profile with the single-file source
+ * launcher:
+ *
+ * <pre>
+ * java StartupProbe.java &lt;report.json&gt; &lt;runs&gt; &lt;name&gt;=&lt;java arguments&gt; ...
+ * </pre>
+ *
+ * Each variant's java arguments are separated by spaces and end with the jar
+ * and any application arguments; the probe appends a random port and turns
+ * authentication off. Medians are written to the report as JSON and printed
+ * as a table.
+ */
+public class StartupProbe {
+
+    private static final Pattern PORT = Pattern.compile("Tomcat started on port (\\d+)");
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([\\d.]+) seconds");
+    private static final String FIRST_EXPORT = "/api/export?rows=1000";
+    private static final long TIMEOUT_SECONDS = 120;
+
+    record Run(long readyMillis, long firstExportMillis, double reportedSeconds, long rssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("usage: StartupProbe <report.json> <runs> <name>=<java arguments> ...");
+        }
+        Path report = Path.of(args[0]);
+        int runs = Integer.parseInt(args[1]);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        StringBuilder json = new StringBuilder("{\n  \"runs\": ").append(runs).append(",\n  \"variants\": [");
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-16s %10s %14s %12s %10s%n",
+                "variant", "ready ms", "first export", "reported s", "RSS MB"));
+        for (int v = 2; v < args.length; v++) {
+            int separator = args[v].indexOf('=');
+            String name = args[v].substring(0, separator);
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(Arrays.asList(args[v].substring(separator + 1).trim().split("\\s+")));
+            command.add("--server.port=0");
+            command.add("--auth.enabled=false");
+
+            List<Run> results = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                results.add(run(command));
+            }
+            long ready = median(results.stream().mapToLong(Run::readyMillis).toArray());
+            long firstExport = median(results.stream().mapToLong(Run::firstExportMillis).toArray());
+            long rss = median(results.stream().mapToLong(Run::rssKb).toArray());
+            double reported = results.stream().mapToDouble(Run::reportedSeconds).sorted().toArray()[runs / 2];
+
+            json.append(v > 2 ? "," : "").append("\n    {\"name\": \"").append(name)
+                    .append("\", \"readyMillis\": ").append(ready)
+                    .append(", \"firstExportMillis\": ").append(firstExport)
+                    .append(", \"reportedStartSeconds\": ").append(reported)
+                    .append(", \"rssKb\": ").append(rss).append('}');
+            table.append(String.format(Locale.ROOT, "%-16s %10d %14d %12.3f %10d%n", name, ready, firstExport,
+                    reported, rss / 1024));
+        }
+        json.append("\n  ]\n}\n");
+
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, json);
+        System.out.print(table);
+        System.out.println("Report written to " + report);
+    }
+
+    private static Run run(List<String> command) throws Exception {
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<Integer> port = new CompletableFuture<>();
+            CompletableFuture<Double> started = new CompletableFuture<>();
+            Thread reader = new Thread(() -> readLog(process, port, started), "startup-probe-log");
+            reader.setDaemon(true);
+            reader.start();
+
+            started.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            long ready = elapsedMillis(launched);
+
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port.get() + FIRST_EXPORT)).build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("First export returned " + response.statusCode());
+            }
+            long firstExport = elapsedMillis(launched);
+            return new Run(ready, firstExport, started.get(), rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void readLog(Process process, CompletableFuture<Integer> port, CompletableFuture<Double> started) {
+        try (BufferedReader log = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = log.readLine()) != null) {
+                Matcher matcher = PORT.matcher(line);
+                if (matcher.find()) {
+                    port.complete(Integer.parseInt(matcher.group(1)));
+                }
+                matcher = STARTED.matcher(line);
+                if (matcher.find()) {
+                    started.complete(Double.parseDouble(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            started.completeExceptionally(e);
+        }
+        started.completeExceptionally(new IllegalStateException("The application exited before it started"));
+    }
+
+    /**
+     * Reads the resident set size from {@code /proc}, or returns -1 where it
+     * is not available.
+     */
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
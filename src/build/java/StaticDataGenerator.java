@@ -0,0 +1,72 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns a JSON array of strings into a Java class holding the same strings as
+ * an array constant, so the application reads its lookup data from the
+ * constant pool instead of parsing JSON at startup.
+ * <p>
+ * Run by the build in {@code generate-sources} with the single-file source
+ * launcher:
+ *
+ * <pre>
+ * java -cp &lt;compile classpath&gt; StaticDataGenerator.java &lt;json&gt; &lt;output dir&gt; &lt;package&gt; &lt;class&gt;
+ * </pre>
+ */
+public class StaticDataGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("usage: StaticDataGenerator <json> <output dir> <package> <class>");
+        }
+        Path json = Path.of(args[0]);
+        String packageName = args[2];
+        String className = args[3];
+        List<String> values = new ObjectMapper().readValue(json.toFile(), new TypeReference<List<String>>() {
+        });
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("/**\n * Generated from ").append(json.getFileName()).append(" by StaticDataGenerator; do not edit.\n */\n");
+        source.append("final class ").append(className).append(" {\n\n");
+        source.append("    static final String[] VALUES = {\n");
+        for (String value : values) {
+            source.append("            \"").append(escape(value)).append("\",\n");
+        }
+        source.append("    };\n\n");
+        source.append("    private ").append(className).append("() {\n    }\n}\n");
+
+        Path file = Path.of(args[1]).resolve(packageName.replace('.', '/')).resolve(className + ".java");
+        Files.createDirectories(file.getParent());
+        byte[] bytes = source.toString().getBytes(StandardCharsets.US_ASCII);
+        if (!Files.exists(file) || !Arrays.equals(Files.readAllBytes(file), bytes)) {
+            Files.write(file, bytes);
+        }
+    }
+
+    /**
+     * Escapes a string for a Java literal, writing everything outside
+     * printable ASCII as a unicode escape so the source encoding never
+     * matters.
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation time of an {@code ooxml} export at each compression level, with
+ * serial deflate ({@code deflateThreads} 0) and parallel deflate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    @Param({ "100000" })
+    private int rows;
+
+    @Param({ "STORED", "FAST", "DEFAULT", "MAX" })
+    private ZipCompression compression;
+
+    @Param({ "0", "4" })
+    private int deflateThreads;
+
+    private DeflatePool deflatePool;
+    private OoxmlExportServiceImpl ooxml;
+    private ExportShard shard;
+
+    @Setup
+    public void setUp() {
+        deflatePool = new DeflatePool(deflateThreads);
+        ooxml = new OoxmlExportServiceImpl();
+        ooxml.setDeflatePool(deflatePool);
+        shard = ExportPlan.of(rows, 20000, Integer.MAX_VALUE, compression).shards().get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflatePool.shutdown();
+    }
+
+    @Benchmark
+    public void exportToNullStream() throws IOException {
+        ooxml.exportTo(OutputStream.nullOutputStream(), shard, ExportProgressListener.NONE);
+    }
+}
@@ -0,0 +1,116 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.services.io.CountingOutputStream;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-export cost at several row counts. Divide {@code gc.alloc.rate.norm}
+ * by {@code rows} for the bytes allocated per row. {@link #packageSize}
+ * reports the size of the package as {@code packageBytes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    private int rows;
+
+    @Param({ "INLINE", "TYPED" })
+    private CellMode cellMode;
+
+    private ExcelExportServiceImpl poi;
+    private OoxmlExportServiceImpl ooxml;
+    private ExportShard shard;
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+
+        @Param({ "poi", "ooxml" })
+        private String engine;
+    }
+
+    /**
+     * The number of package bytes written. JMH sums event counters over all
+     * iterations, so only a single-shot run reports the size of one package.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Output {
+
+        public long packageBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        poi = new ExcelExportServiceImpl();
+        poi.setCellMode(cellMode);
+        ooxml = new OoxmlExportServiceImpl();
+        ooxml.setCellMode(cellMode);
+        shard = ExportPlan.of(rows, 20000, Integer.MAX_VALUE).shards().get(0);
+    }
+
+    /**
+     * Fills an SXSSF workbook without writing the package.
+     */
+    @Benchmark
+    public SXSSFWorkbook buildExport() throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        try {
+            poi.buildExport(workbook, shard.sheets(), ExportProgressListener.NONE);
+            return workbook;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Produces the complete package, discarding the bytes.
+     */
+    @Benchmark
+    public void exportToNullStream(Engine engine) throws IOException {
+        engine(engine).exportTo(OutputStream.nullOutputStream(), shard, ExportProgressListener.NONE);
+    }
+
+    /**
+     * Produces the complete package once and counts its bytes. The time is a
+     * cold first export, not a measurement.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void packageSize(Engine engine, Output output) throws IOException {
+        CountingOutputStream out = new CountingOutputStream(OutputStream.nullOutputStream());
+        engine(engine).exportTo(out, shard, ExportProgressListener.NONE);
+        output.packageBytes += out.getCount();
+    }
+
+    private ExcelExportService engine(Engine engine) {
+        return engine.engine.equals(OoxmlExportServiceImpl.ENGINE) ? ooxml : poi;
+    }
+}
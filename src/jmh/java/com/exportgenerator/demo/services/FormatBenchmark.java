@@ -0,0 +1,50 @@
+package com.exportgenerator.demo.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation time of the streaming formats for machine consumers, written
+ * uncompressed to a null stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+    @Param({ "100000" })
+    private int rows;
+
+    private final DelimitedExportServiceImpl delimited = new DelimitedExportServiceImpl();
+    private final ColumnarExportServiceImpl columnar = new ColumnarExportServiceImpl();
+
+    @Benchmark
+    public void csv() throws IOException {
+        delimited.write(DelimitedFormat.CSV, rows, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        columnar.write(ColumnarFormat.NDJSON, rows, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void arrow() throws IOException {
+        columnar.write(ColumnarFormat.ARROW, rows, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,92 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.services.poi.PoiRowWriter;
+import com.exportgenerator.demo.services.schema.RowPlan;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the POI engine. With {@code -prof gc} the
+ * {@code gc.alloc.rate.norm} of {@link #populateRow} is the bytes allocated
+ * per row, including its share of flushing the SXSSF window to disk. Rows are
+ * written the way an export writes them: from a {@link PoiRowWriter} over the
+ * layout compiled once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RowBenchmark {
+
+    @Param({ "INLINE", "TYPED" })
+    private CellMode cellMode;
+
+    private final ExcelExportServiceImpl excelExportService = new ExcelExportServiceImpl();
+    private final RowPlan plan = ExcelExportServiceImpl.SCHEMA.compile(LocalDate.now(ZoneOffset.UTC));
+
+    private SXSSFWorkbook workbook;
+    private Sheet sheet;
+    private Sheet headerSheet;
+    private PoiRowWriter rowWriter;
+    private int rowIndex;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        workbook = new SXSSFWorkbook();
+        CellStyle dateStyle = cellMode == CellMode.TYPED ? excelExportService.createDateStyle(workbook) : null;
+        rowWriter = new PoiRowWriter(plan, dateStyle);
+        headerSheet = workbook.createSheet("Header");
+        sheet = workbook.createSheet("Data_Sheet1");
+        rowIndex = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    @Benchmark
+    public Row populateRow() {
+        if (rowIndex == ExcelExportServiceImpl.MAX_ROWS_PER_SHEET) {
+            sheet = workbook.createSheet("Data_Sheet" + (workbook.getNumberOfSheets()));
+            rowIndex = 0;
+        }
+        rowIndex++;
+        Row row = sheet.createRow(rowIndex);
+        rowWriter.writeRow(row, rowIndex);
+        return row;
+    }
+
+    /**
+     * Recreates row 0 of the same sheet; it stays in the SXSSF window, so no
+     * rows are flushed.
+     */
+    @Benchmark
+    public Sheet createHeaderRow() {
+        excelExportService.createHeaderRow(headerSheet);
+        return headerSheet;
+    }
+}
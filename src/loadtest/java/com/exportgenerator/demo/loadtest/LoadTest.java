@@ -0,0 +1,406 @@
+package com.exportgenerator.demo.loadtest;
+
+import com.exportgenerator.demo.ExportGeneratorApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for {@code GET /api/export}: boots the application in this JVM on
+ * a random port and drives it with the JDK {@link HttpClient}.
+ * <p>
+ * Each concurrency level is one scenario in which every client downloads
+ * {@code requests} exports back to back; an optional slow-reader scenario
+ * throttles every client to {@code slow-rate} bytes per second. Slow readers
+ * use a plain socket so that {@code receive-buffer} can bound what the kernel
+ * reads ahead for them; with {@code send-buffer} bounding the server side as
+ * well, each slow download holds its request thread until the client has read
+ * nearly all of it. For each scenario the report holds the latency (to the
+ * first byte and to the last) at p50/p95/p99, throughput, the error rate and
+ * status codes, the most requests the server handled at once, and the peak
+ * heap, resident memory and temp-file disk use. The application's temp
+ * directories are moved under the run directory so the disk peak covers only
+ * this run. Heap and resident memory include the clients, which only count
+ * and discard the bytes they receive.
+ * <p>
+ * Options are {@code key=value} arguments; any other argument containing a
+ * dot is passed to the application as a property, for example
+ * {@code export.engine=ooxml}, and overrides {@code application.properties}.
+ * An empty {@code concurrency} runs only the slow-reader scenario. Run with
+ * {@code ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="concurrency=10,50 rows=10000"}.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("concurrency", "10,50,200"),
+            Map.entry("requests", "3"),
+            Map.entry("rows", "10000"),
+            Map.entry("path", "/api/export"),
+            Map.entry("warmup", "5"),
+            Map.entry("slow-readers", "16"),
+            Map.entry("slow-rate", "262144"),
+            Map.entry("receive-buffer", "0"),
+            Map.entry("send-buffer", "0"),
+            Map.entry("sample-interval", "50"),
+            Map.entry("timeout", "PT10M"),
+            Map.entry("report", "target/loadtest/load-report.json"));
+
+    private final Map<String, String> options;
+    private final HttpClient client;
+    private final Duration timeout;
+    private int port;
+    private LoadTestServer.ActiveRequests activeRequests;
+
+    record Scenario(String name, int clients, int requestsPerClient, int rows, long readBytesPerSecond) {
+    }
+
+    record Percentiles(long p50, long p95, long p99, long max) {
+    }
+
+    record ScenarioResult(String name, int clients, int requests, int rows, long readBytesPerSecond,
+            long durationMillis, double requestsPerSecond, double rowsPerSecond, double bytesPerSecond,
+            Percentiles latencyMillis, Percentiles firstByteMillis, int errors, double errorRate,
+            Map<String, Integer> statusCounts, int peakActiveRequests, long peakHeapBytes, long peakRssBytes,
+            long peakTempDiskBytes) {
+    }
+
+    record Report(Instant startedAt, String javaVersion, int availableProcessors, long maxHeapBytes,
+            Map<String, String> options, Map<String, String> applicationProperties, List<ScenarioResult> scenarios,
+            long processPeakRssBytes) {
+    }
+
+    /**
+     * The outcome of one request: the status (-1 for an exception), bytes
+     * received and the times to the response headers and the last byte.
+     */
+    private record Sample(int status, long bytes, long firstByteNanos, long totalNanos) {
+    }
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.timeout = Duration.parse(options.get("timeout"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new TreeMap<>(DEFAULTS);
+        Map<String, String> properties = new TreeMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (DEFAULTS.containsKey(key)) {
+                options.put(key, value);
+            } else if (key.contains(".")) {
+                properties.put(key, value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + key + "; options are " + DEFAULTS.keySet());
+            }
+        }
+
+        Report report = new LoadTest(options).run(properties);
+
+        Path file = Path.of(options.get("report"));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(file.toFile(), report);
+        printSummary(report);
+        System.out.println("Report written to " + file.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private Report run(Map<String, String> properties) throws Exception {
+        Instant startedAt = Instant.now();
+        // devtools would otherwise restart the application, and this class, in another thread
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Path runDirectory = Path.of("target", "loadtest", "run").toAbsolutePath();
+        FileSystemUtils.deleteRecursively(runDirectory);
+        Files.createDirectories(runDirectory);
+        Map<String, String> applicationProperties = new TreeMap<>(Map.of(
+                "server.port", "0",
+                "auth.enabled", "false",
+                "logging.level.root", "WARN",
+                "export.spill.directory", runDirectory.resolve("spill").toString(),
+                "export.sharding.directory", runDirectory.resolve("shards").toString(),
+                "export.cache.directory", runDirectory.resolve("cache").toString(),
+                "export.jobs.directory", runDirectory.resolve("jobs").toString(),
+                "loadtest.send-buffer", options.get("send-buffer")));
+        applicationProperties.putAll(properties);
+
+        List<Scenario> scenarios = scenarios();
+        List<ScenarioResult> results = new ArrayList<>();
+        // Command-line arguments, unlike default properties, override application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ExportGeneratorApplication.class,
+                LoadTestServer.class)
+                .run(applicationProperties.entrySet().stream()
+                        .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                        .toArray(String[]::new));
+        try (ResourceSampler sampler = new ResourceSampler(runDirectory,
+                Long.parseLong(options.get("sample-interval")))) {
+            port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            activeRequests = context.getBean(LoadTestServer.ActiveRequests.class);
+            int rows = Integer.parseInt(options.get("rows"));
+            for (int i = 0; i < Integer.parseInt(options.get("warmup")); i++) {
+                request(rows, 0);
+            }
+            for (Scenario scenario : scenarios) {
+                System.out.printf(Locale.ROOT, "Running %s: %d clients x %d requests of %d rows%n", scenario.name(),
+                        scenario.clients(), scenario.requestsPerClient(), scenario.rows());
+                results.add(run(scenario, sampler));
+            }
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(runDirectory);
+        }
+
+        return new Report(startedAt, System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory(), options, applicationProperties, results,
+                ResourceSampler.processPeakRssBytes());
+    }
+
+    private List<Scenario> scenarios() {
+        int requests = Integer.parseInt(options.get("requests"));
+        int rows = Integer.parseInt(options.get("rows"));
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String level : options.get("concurrency").split(",")) {
+            if (level.isBlank()) {
+                continue;
+            }
+            int clients = Integer.parseInt(level.trim());
+            scenarios.add(new Scenario("concurrency-" + clients, clients, requests, rows, 0));
+        }
+        int slowReaders = Integer.parseInt(options.get("slow-readers"));
+        if (slowReaders > 0) {
+            scenarios.add(new Scenario("slow-readers-" + slowReaders, slowReaders, 1, rows,
+                    Long.parseLong(options.get("slow-rate"))));
+        }
+        return scenarios;
+    }
+
+    private ScenarioResult run(Scenario scenario, ResourceSampler sampler) throws Exception {
+        System.gc();
+        sampler.reset();
+        activeRequests.reset();
+        ExecutorService clients = Executors.newFixedThreadPool(scenario.clients());
+        try {
+            List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < scenario.clients(); i++) {
+                futures.add(clients.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < scenario.requestsPerClient(); r++) {
+                        samples.add(scenario.readBytesPerSecond() > 0
+                                ? slowRequest(scenario.rows(), scenario.readBytesPerSecond())
+                                : request(scenario.rows(), 0));
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            long nanos = System.nanoTime() - begin;
+            return result(scenario, samples, nanos, sampler, activeRequests.peak());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Downloads one export, reading at most {@code readBytesPerSecond}
+     * bytes per second when it is positive.
+     */
+    private Sample request(int rows, long readBytesPerSecond) {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + options.get("path") + "?rows=" + rows))
+                .timeout(timeout)
+                .build();
+        long begin = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long firstByte = System.nanoTime() - begin;
+            long bytes = 0;
+            try (InputStream body = response.body()) {
+                byte[] buffer = new byte[readBytesPerSecond > 0 ? 16 * 1024 : 64 * 1024];
+                long pauseNanos = readBytesPerSecond > 0
+                        ? TimeUnit.SECONDS.toNanos(1) * buffer.length / readBytesPerSecond
+                        : 0;
+                int read;
+                while ((read = body.read(buffer)) >= 0) {
+                    bytes += read;
+                    if (pauseNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(pauseNanos);
+                    }
+                }
+            }
+            return new Sample(response.statusCode(), bytes, firstByte, System.nanoTime() - begin);
+        } catch (IOException e) {
+            return new Sample(-1, 0, 0, System.nanoTime() - begin);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Sample(-1, 0, 0, System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * Downloads one export over a plain socket, reading at most
+     * {@code readBytesPerSecond} bytes per second through a receive buffer of
+     * {@code receive-buffer} bytes when that is positive. The byte count
+     * includes any chunked-encoding framing.
+     */
+    private Sample slowRequest(int rows, long readBytesPerSecond) {
+        int receiveBuffer = Integer.parseInt(options.get("receive-buffer"));
+        long begin = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            if (receiveBuffer > 0) {
+                socket.setReceiveBufferSize(receiveBuffer);
+            }
+            socket.setSoTimeout((int) timeout.toMillis());
+            socket.connect(new InetSocketAddress("localhost", port), 30_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + options.get("path") + "?rows=" + rows + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            String statusLine = readLine(in);
+            long firstByte = System.nanoTime() - begin;
+            String[] parts = statusLine.split(" ");
+            if (parts.length < 2) {
+                return new Sample(-1, 0, firstByte, System.nanoTime() - begin);
+            }
+            int status = Integer.parseInt(parts[1]);
+            while (!readLine(in).isEmpty()) {
+                // skip the remaining headers
+            }
+            byte[] buffer = new byte[receiveBuffer > 0 ? receiveBuffer : 16 * 1024];
+            long pauseNanos = TimeUnit.SECONDS.toNanos(1) * buffer.length / readBytesPerSecond;
+            long bytes = 0;
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes += read;
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            }
+            return new Sample(status, bytes, firstByte, System.nanoTime() - begin);
+        } catch (IOException | NumberFormatException e) {
+            return new Sample(-1, 0, 0, System.nanoTime() - begin);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Sample(-1, 0, 0, System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * Reads one CRLF-terminated header line, or what remains at the end of
+     * the stream.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static ScenarioResult result(Scenario scenario, List<Sample> samples, long nanos,
+            ResourceSampler sampler, int peakActiveRequests) {
+        Map<String, Integer> statusCounts = new TreeMap<>();
+        List<Long> latencies = new ArrayList<>();
+        List<Long> firstBytes = new ArrayList<>();
+        long bytes = 0;
+        int errors = 0;
+        int succeeded = 0;
+        for (Sample sample : samples) {
+            statusCounts.merge(sample.status() < 0 ? "exception" : String.valueOf(sample.status()), 1, Integer::sum);
+            if (sample.status() == 200) {
+                succeeded++;
+                bytes += sample.bytes();
+                latencies.add(TimeUnit.NANOSECONDS.toMillis(sample.totalNanos()));
+                firstBytes.add(TimeUnit.NANOSECONDS.toMillis(sample.firstByteNanos()));
+            } else {
+                errors++;
+            }
+        }
+        double seconds = nanos / 1e9;
+        return new ScenarioResult(scenario.name(), scenario.clients(), samples.size(), scenario.rows(),
+                scenario.readBytesPerSecond(), TimeUnit.NANOSECONDS.toMillis(nanos), succeeded / seconds,
+                (double) succeeded * scenario.rows() / seconds, bytes / seconds, percentiles(latencies),
+                percentiles(firstBytes), errors, samples.isEmpty() ? 0 : (double) errors / samples.size(),
+                statusCounts, peakActiveRequests, sampler.peakHeapBytes(), sampler.peakRssBytes(), sampler.peakTempDiskBytes());
+    }
+
+    /**
+     * Nearest-rank percentiles, or all -1 when nothing succeeded.
+     */
+    private static Percentiles percentiles(List<Long> values) {
+        if (values.isEmpty()) {
+            return new Percentiles(-1, -1, -1, -1);
+        }
+        long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Percentiles(rank(sorted, 50), rank(sorted, 95), rank(sorted, 99), sorted[sorted.length - 1]);
+    }
+
+    private static long rank(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static void printSummary(Report report) {
+        System.out.printf(Locale.ROOT, "%-18s %8s %8s %8s %8s %9s %7s %7s %9s %9s %9s%n", "scenario", "req/s",
+                "p50 ms", "p95 ms", "p99 ms", "TTFB p95", "errors", "active", "heap MB", "RSS MB", "disk MB");
+        for (ScenarioResult result : report.scenarios()) {
+            System.out.printf(Locale.ROOT, "%-18s %8.2f %8d %8d %8d %9d %7s %7d %9d %9d %9d%n", result.name(),
+                    result.requestsPerSecond(), result.latencyMillis().p50(), result.latencyMillis().p95(),
+                    result.latencyMillis().p99(), result.firstByteMillis().p95(),
+                    result.errors() + "/" + result.requests(), result.peakActiveRequests(), megabytes(result.peakHeapBytes()),
+                    megabytes(result.peakRssBytes()), megabytes(result.peakTempDiskBytes()));
+        }
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes < 0 ? -1 : bytes / (1024 * 1024);
+    }
+}
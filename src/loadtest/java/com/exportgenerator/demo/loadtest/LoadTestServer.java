@@ -0,0 +1,73 @@
+package com.exportgenerator.demo.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-side instrumentation the load test adds to the application: a count
+ * of the requests being served and, when {@code loadtest.send-buffer} is
+ * positive, a fixed socket send buffer. On loopback the send buffer otherwise
+ * grows to several megabytes, enough to absorb a whole export and free the
+ * request thread while a slow client is still reading.
+ */
+@Configuration(proxyBeanMethods = false)
+class LoadTestServer {
+
+    @Bean
+    ActiveRequests activeRequests() {
+        return new ActiveRequests();
+    }
+
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> sendBuffer(
+            @Value("${loadtest.send-buffer:0}") int sendBuffer) {
+        return factory -> {
+            if (sendBuffer > 0) {
+                factory.addConnectorCustomizers(
+                        connector -> connector.setProperty("socket.txBufSize", String.valueOf(sendBuffer)));
+            }
+        };
+    }
+
+    /**
+     * Tracks the most requests in the server at once. A client can still be
+     * reading the tail of its download from socket buffers after the server
+     * has finished with it, so this, not the client count, is what request
+     * threads bound.
+     */
+    static class ActiveRequests extends OncePerRequestFilter {
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                FilterChain chain) throws ServletException, IOException {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        int peak() {
+            return peak.get();
+        }
+
+        void reset() {
+            peak.set(active.get());
+        }
+    }
+}
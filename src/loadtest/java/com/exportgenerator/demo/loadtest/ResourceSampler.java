@@ -0,0 +1,123 @@
+package com.exportgenerator.demo.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Samples heap use, resident memory and the size of the export temp
+ * directories at a fixed interval and keeps the peaks since the last
+ * {@link #reset()}.
+ * <p>
+ * Heap is sampled rather than read from the memory pools' peak usage, so a
+ * peak between two samples can be missed; the interval is short enough for
+ * exports that run for longer than a few hundred milliseconds. Resident
+ * memory is read from {@code /proc/self/status} and reported as -1 elsewhere.
+ */
+final class ResourceSampler implements AutoCloseable {
+
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    private final Path tempDirectory;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-test-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledFuture<?> task;
+
+    private volatile long peakHeapBytes;
+    private volatile long peakRssBytes;
+    private volatile long peakTempDiskBytes;
+
+    /**
+     * @param tempDirectory  the directory holding every temp directory of the
+     *                       application under test
+     * @param intervalMillis the sampling interval
+     */
+    ResourceSampler(Path tempDirectory, long intervalMillis) {
+        this.tempDirectory = tempDirectory;
+        this.task = scheduler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void reset() {
+        peakHeapBytes = 0;
+        peakRssBytes = 0;
+        peakTempDiskBytes = 0;
+        sample();
+    }
+
+    long peakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    long peakRssBytes() {
+        return peakRssBytes;
+    }
+
+    long peakTempDiskBytes() {
+        return peakTempDiskBytes;
+    }
+
+    /**
+     * @return the highest resident memory of the process so far, or -1 where
+     *         it is not available
+     */
+    static long processPeakRssBytes() {
+        return procStatusBytes("VmHWM:");
+    }
+
+    private synchronized void sample() {
+        peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+        peakRssBytes = Math.max(peakRssBytes, procStatusBytes("VmRSS:"));
+        peakTempDiskBytes = Math.max(peakTempDiskBytes, directorySize(tempDirectory));
+    }
+
+    private static long directorySize(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.mapToLong(ResourceSampler::fileSize).sum();
+        } catch (IOException | UncheckedIOException e) {
+            // files come and go while exports run; the next sample counts them
+            return 0;
+        }
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.isRegularFile(file) ? Files.size(file) : 0;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long procStatusBytes(String field) {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+        scheduler.shutdownNow();
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -17,6 +19,12 @@ public class SecurityConfig {
     @Value("${auth.enabled}")
     private boolean authEnabled;
 
+    @Value("${auth.token-cache.max-entries:10000}")
+    private int tokenCacheMaxEntries;
+
+    @Value("${auth.token-cache.max-age:PT5M}")
+    private Duration tokenCacheMaxAge;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable());
@@ -29,7 +37,7 @@ public class SecurityConfig {
                     .requestMatchers("/swagger-resources/**").permitAll() // Allow Swagger resources access
                     .anyRequest().authenticated() // Secure all other endpoints
             )
-                    .addFilterBefore(new JwtAuthenticationFilter(), BasicAuthenticationFilter.class)
+                    .addFilterBefore(new JwtAuthenticationFilter(tokenCacheMaxEntries, tokenCacheMaxAge), BasicAuthenticationFilter.class)
                     .sessionManagement(session -> session
                             .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
         } else {
@@ -0,0 +1,63 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.services.ColumnarFormat;
+import com.exportgenerator.demo.services.serviceinterfaces.ColumnarExportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@SecurityRequirement(name = "bearerAuth")
+public class ColumnarExportController {
+
+    private final ColumnarExportService columnarExportService;
+
+    public ColumnarExportController(ColumnarExportService columnarExportService) {
+        this.columnarExportService = columnarExportService;
+    }
+
+    @Operation(summary = "Export data to NDJSON", description = "Streams the export columns as newline-delimited JSON, one object per row. IDs are numbers and dates are ISO strings. The response is gzip-encoded when the client sends Accept-Encoding: gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed the NDJSON file"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range")
+    })
+    @GetMapping("/export.ndjson")
+    public void exportToNdjson(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        columnarExportService.export(ColumnarFormat.NDJSON, rows, request, response);
+    }
+
+    @Operation(summary = "Export data to an Arrow IPC stream", description = "Streams the export columns as an uncompressed Apache Arrow IPC stream in record batches: ID as int32, dates as date32 and text as utf8.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed the Arrow stream"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range")
+    })
+    @GetMapping("/export.arrows")
+    public void exportToArrow(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        columnarExportService.export(ColumnarFormat.ARROW, rows, request, response);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleIllegalArgument(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
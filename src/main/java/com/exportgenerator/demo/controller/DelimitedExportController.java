@@ -0,0 +1,63 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.services.DelimitedFormat;
+import com.exportgenerator.demo.services.serviceinterfaces.DelimitedExportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@SecurityRequirement(name = "bearerAuth")
+public class DelimitedExportController {
+
+    private final DelimitedExportService delimitedExportService;
+
+    public DelimitedExportController(DelimitedExportService delimitedExportService) {
+        this.delimitedExportService = delimitedExportService;
+    }
+
+    @Operation(summary = "Export data to CSV", description = "Streams the export columns as comma-separated values. The response is gzip-encoded when the client sends Accept-Encoding: gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed the CSV file"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range")
+    })
+    @GetMapping("/export.csv")
+    public void exportToCsv(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        delimitedExportService.export(DelimitedFormat.CSV, rows, request, response);
+    }
+
+    @Operation(summary = "Export data to TSV", description = "Streams the export columns as tab-separated values. The response is gzip-encoded when the client sends Accept-Encoding: gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed the TSV file"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range")
+    })
+    @GetMapping("/export.tsv")
+    public void exportToTsv(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        delimitedExportService.export(DelimitedFormat.TSV, rows, request, response);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleIllegalArgument(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
@@ -1,11 +1,26 @@
 package com.exportgenerator.demo.controller;
 
-import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.model.CachedExport;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.model.ExportSelection;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportCacheService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,28 +28,62 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 @SecurityRequirement(name = "bearerAuth")
 public class ExportController {
 
-    private final ExcelExportService excelExportService;
+    private static final String RETRY_AFTER_SECONDS = "30";
 
-    public ExportController(ExcelExportService excelExportService) {
-        this.excelExportService = excelExportService;
+    private final ExportBundleService exportBundleService;
+
+    /**
+     * The export cache, or {@code null} when {@code export.cache.enabled} is off.
+     */
+    private final ExportCacheService exportCacheService;
+
+    public ExportController(ExportBundleService exportBundleService,
+            ObjectProvider<ExportCacheService> exportCacheService) {
+        this.exportBundleService = exportBundleService;
+        this.exportCacheService = exportCacheService.getIfAvailable();
     }
 
-    @Operation(summary = "Export data to Excel", description = "Generates an Excel file containing 100,000 rows with the following columns: ID, Name, Value, 10 date columns (StartDate_A to StartDate_J), and PokemonName. The date columns contain today's date in UTC format, and the PokemonName column contains Pokémon names from Bulbasaur to Mew in a cyclical manner.")
+    @Operation(summary = "Export data to Excel", description = "Generates an Excel file containing the requested number of rows (100,000 by default) with the following columns: ID, Name, Value, 10 date columns (StartDate_A to StartDate_J), and PokemonName. The date columns contain today's date in UTC format, and the PokemonName column contains Pokémon names from Bulbasaur to Mew in a cyclical manner. Rows are split into sheets of export.rows-per-sheet rows; exports larger than export.sharding.max-rows-per-workbook are split into several workbooks and delivered as a zip. Pass sheets, fromRow and toRow to export only some sheets or a range of row indexes; the selected rows hold the same values as in the full export, so several clients can each fetch a part.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully generated and downloaded the Excel file", content = @Content(schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Requested byte range of a cached Excel file"),
+            @ApiResponse(responseCode = "304", description = "The cached Excel file matches If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range, unknown compression or invalid selection"),
+            @ApiResponse(responseCode = "416", description = "Requested byte range lies outside the cached Excel file"),
+            @ApiResponse(responseCode = "429", description = "Export capacity is exhausted; retry after the Retry-After delay"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/export")
-    public void exportToExcel(HttpServletResponse response) throws IOException {
-        excelExportService.exportToExcel(response);
+    public void exportToExcel(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            @Parameter(description = "Package compression: stored, fast, default or max (default: export.compression.level)") @RequestParam(required = false) String compression,
+            @Parameter(description = "One-based numbers of the sheets to export (default: all sheets)") @RequestParam(required = false) List<Integer> sheets,
+            @Parameter(description = "First row index to export, inclusive (default: 1)") @RequestParam(required = false) Integer fromRow,
+            @Parameter(description = "Row index to stop at, exclusive (default: the end of the export)") @RequestParam(required = false) Integer toRow,
+            HttpServletRequest httpRequest, HttpServletResponse response, Principal principal) throws IOException {
+        ExportRequest request = ExportRequest.of(rows, principal)
+                .withCompression(compression != null ? ZipCompression.parse(compression) : null)
+                .withSelection(ExportSelection.of(sheets, fromRow, toRow));
+        if (exportCacheService == null) {
+            exportBundleService.export(request, response);
+            return;
+        }
+
+        CachedExport export = exportCacheService.getOrGenerate(request);
+        FileDownloads.send(httpRequest, response, export.file(), export.size(),
+                export.fileName().endsWith(".zip") ? "application/zip" : MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                export.fileName(), export.etag());
     }
 
     @GetMapping("/message")
@@ -43,4 +92,17 @@ public class ExportController {
         response.put("message", "Export Controller");
         return response;
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleIllegalArgument(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,138 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.model.ExportJob;
+import com.exportgenerator.demo.model.ExportJobStatus;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.model.ExportSelection;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportJobService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/exports")
+@SecurityRequirement(name = "bearerAuth")
+public class ExportJobController {
+
+    /**
+     * Seconds a client should wait before resubmitting when the job queue is
+     * full.
+     */
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final ExportJobService exportJobService;
+
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+
+    @Operation(summary = "Start an asynchronous export", description = "Queues the same export as GET /api/export and returns a job id. Poll the job for progress and download the file once it has completed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job accepted"),
+            @ApiResponse(responseCode = "400", description = "Row count out of range, unknown compression or invalid selection"),
+            @ApiResponse(responseCode = "429", description = "Export job queue is full; retry after the Retry-After delay")
+    })
+    @PostMapping
+    public ResponseEntity<ExportJobStatus> submit(
+            @Parameter(description = "Number of data rows") @RequestParam(defaultValue = "100000") int rows,
+            @Parameter(description = "Package compression: stored, fast, default or max (default: export.compression.level)") @RequestParam(required = false) String compression,
+            @Parameter(description = "One-based numbers of the sheets to export (default: all sheets)") @RequestParam(required = false) List<Integer> sheets,
+            @Parameter(description = "First row index to export, inclusive (default: 1)") @RequestParam(required = false) Integer fromRow,
+            @Parameter(description = "Row index to stop at, exclusive (default: the end of the export)") @RequestParam(required = false) Integer toRow,
+            Principal principal) {
+        try {
+            ExportJob job = exportJobService.submit(ExportRequest.of(rows, principal)
+                    .withCompression(compression != null ? ZipCompression.parse(compression) : null)
+                    .withSelection(ExportSelection.of(sheets, fromRow, toRow)));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/exports/" + job.getId()))
+                    .body(job.toStatus());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+    }
+
+    @Operation(summary = "Get export job status", description = "Reports the job state and the number of rows generated so far for each sheet.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job status"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    @GetMapping("/{id}")
+    public ExportJobStatus status(@PathVariable String id) {
+        return findJob(id).toStatus();
+    }
+
+    @Operation(summary = "Download a finished export", description = "Streams the generated Excel file, or zip of Excel files, of a completed job. The job id is the ETag; send it in If-Range with a Range header to resume an interrupted download.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The generated Excel file", content = @Content(schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Requested byte range of the generated Excel file"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job"),
+            @ApiResponse(responseCode = "409", description = "Job has not completed"),
+            @ApiResponse(responseCode = "416", description = "Requested byte range lies outside the file")
+    })
+    @GetMapping("/{id}/file")
+    public void download(@PathVariable String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportJob job = findJob(id);
+        if (job.getState() != ExportJob.State.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Export job " + id + " is " + job.getState());
+        }
+
+        FileDownloads.send(request, response, job.getFile(), Files.size(job.getFile()),
+                job.getFileName().endsWith(".zip") ? "application/zip" : MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                job.getFileName(), "\"" + job.getId() + "\"");
+    }
+
+    @Operation(summary = "Cancel an export job", description = "Stops a queued or running job; it is reported as CANCELLED once it has stopped. Finished jobs are not affected.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancel requested"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ExportJobStatus> cancel(@PathVariable String id) {
+        ExportJob job = exportJobService.cancel(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export job " + id));
+        return ResponseEntity.accepted().body(job.toStatus());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleIllegalArgument(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    private ExportJob findJob(String id) {
+        return exportJobService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export job " + id));
+    }
+}
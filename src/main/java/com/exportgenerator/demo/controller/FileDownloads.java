@@ -0,0 +1,132 @@
+package com.exportgenerator.demo.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves finished export files without copying them through the heap.
+ * <p>
+ * On Tomcat the file, or the requested byte range of it, is handed to the
+ * connector as a sendfile request and goes from the page cache to the socket
+ * in the kernel. Elsewhere, and for small files, it is written with
+ * {@link FileChannel#transferTo}. A single {@code Range} is answered with
+ * {@code 206 Partial Content}, honouring {@code If-Range}, so an interrupted
+ * download can resume; requests for several ranges get the whole file.
+ * <p>
+ * Tomcat opens the file by name after the handler returns, so files served
+ * here must not be rewritten in place; deleting one that is being sent only
+ * cuts off that download.
+ */
+final class FileDownloads {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Smallest body worth a sendfile; below it, setting up the transfer costs
+     * more than writing the bytes (Tomcat's default servlet uses the same
+     * threshold).
+     */
+    static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private FileDownloads() {
+    }
+
+    /**
+     * Sends a file as the response body, or the part of it requested with
+     * {@code Range}.
+     *
+     * @param request     the request
+     * @param response    the response, not yet committed
+     * @param file        the file to send
+     * @param size        the file size in bytes
+     * @param contentType the content type
+     * @param fileName    the download file name
+     * @param etag        the quoted strong entity tag of the file's content,
+     *                    or {@code null} if it has none
+     * @throws IOException if reading the file or writing the response fails
+     */
+    static void send(HttpServletRequest request, HttpServletResponse response, Path file, long size,
+            String contentType, String fileName, String etag) throws IOException {
+        if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        response.setContentType(contentType);
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                }
+            } catch (IllegalArgumentException e) {
+                ranges = null;
+            }
+            if (ranges == null || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (ranges.size() == 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(file, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * A range only applies if {@code If-Range} is absent or names the current
+     * content; otherwise the client's partial copy is stale and it gets the
+     * whole file.
+     */
+    private static boolean rangeApplies(String ifRange, String etag) {
+        return ifRange == null || (etag != null && ifRange.trim().equals(etag));
+    }
+
+    private static void transfer(Path file, long position, long count, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    throw new IOException("File " + file + " ended at byte " + position + " of " + end);
+                }
+                position += transferred;
+            }
+        }
+    }
+}
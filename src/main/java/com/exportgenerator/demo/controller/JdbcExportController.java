@@ -0,0 +1,57 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.serviceinterfaces.JdbcExportService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api")
+@SecurityRequirement(name = "bearerAuth")
+@ConditionalOnProperty(name = "export.jdbc.query")
+public class JdbcExportController {
+
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final JdbcExportService jdbcExportService;
+
+    public JdbcExportController(JdbcExportService jdbcExportService) {
+        this.jdbcExportService = jdbcExportService;
+    }
+
+    @Operation(summary = "Export a database query to Excel", description = "Streams the rows of the configured export query into an Excel file using a forward-only cursor, starting a new sheet whenever one is full.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully generated and downloaded the Excel file", content = @Content(schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "429", description = "Export capacity is exhausted; retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/export/jdbc")
+    public void exportQuery(HttpServletResponse response, Principal principal) throws IOException {
+        jdbcExportService.exportToExcel(principal != null ? principal.getName() : ExportRequest.ANONYMOUS, response);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
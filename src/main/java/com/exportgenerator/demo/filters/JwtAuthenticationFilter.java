@@ -1,6 +1,7 @@
 package com.exportgenerator.demo.filters;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,12 +14,41 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Date;
 
+/**
+ * Authenticates requests carrying an HMAC-signed bearer JWT.
+ * <p>
+ * The signing key and parser are built once. Verified tokens are cached (see
+ * {@link VerifiedTokenCache}), so clients that poll with the same token only
+ * pay for signature verification on the first request.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final String SECRET_KEY = "mySecretKeymySecretKeymySecretKey12345"; // Use a more secure key
 
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
+            .build();
+
+    private final VerifiedTokenCache verifiedTokens;
+
+    /**
+     * @param cacheMaxEntries verified tokens to remember; 0 disables the cache
+     * @param cacheMaxAge     longest a token is remembered, also for tokens
+     *                        without an {@code exp} claim
+     */
+    public JwtAuthenticationFilter(int cacheMaxEntries, Duration cacheMaxAge) {
+        this(cacheMaxEntries, cacheMaxAge, Clock.systemUTC());
+    }
+
+    JwtAuthenticationFilter(int cacheMaxEntries, Duration cacheMaxAge, Clock clock) {
+        this.verifiedTokens = new VerifiedTokenCache(cacheMaxEntries, cacheMaxAge, clock);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -29,17 +59,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = header.replace("Bearer ", "");
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        if (claims != null) {
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    claims.getSubject(), null, Collections.emptyList());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        String subject = verifiedTokens.get(token);
+        if (subject == null) {
+            Claims claims = PARSER.parseClaimsJws(token).getBody();
+            subject = claims.getSubject();
+            Date expiration = claims.getExpiration();
+            verifiedTokens.put(token, subject, expiration == null ? null : expiration.toInstant());
         }
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                subject, null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
         filterChain.doFilter(request, response);
     }
+
+    int cachedTokens() {
+        return verifiedTokens.size();
+    }
 }
@@ -0,0 +1,99 @@
+package com.exportgenerator.demo.filters;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Subjects of bearer tokens whose signature has already been verified.
+ * <p>
+ * Entries are keyed by the SHA-256 of the token, so the cache never holds
+ * usable credentials, and are dropped at the token's {@code exp}, or after
+ * {@code maxAge} for tokens without one. Once {@code maxEntries} is reached the
+ * least recently used token is evicted. Access is synchronized; a hit costs a
+ * hash and a map lookup instead of an HMAC verification and a JSON parse.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Map<ByteBuffer, Entry> entries;
+
+    VerifiedTokenCache(int maxEntries, Duration maxAge, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+                return size() > VerifiedTokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param token the compact JWT
+     * @return the subject of the token if it was verified and has not expired
+     *         since, otherwise {@code null}
+     */
+    String get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        ByteBuffer key = hash(token);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!clock.instant().isBefore(entry.expiresAt())) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.subject();
+        }
+    }
+
+    /**
+     * Remembers a verified token.
+     *
+     * @param token      the compact JWT
+     * @param subject    its subject
+     * @param expiration its {@code exp} claim, or {@code null} if it has none
+     */
+    void put(String token, String subject, Instant expiration) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Instant latest = clock.instant().plus(maxAge);
+        Instant expiresAt = expiration == null || expiration.isAfter(latest) ? latest : expiration;
+        ByteBuffer key = hash(token);
+        synchronized (entries) {
+            entries.put(key, new Entry(subject, expiresAt));
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Entry(String subject, Instant expiresAt) {
+    }
+}
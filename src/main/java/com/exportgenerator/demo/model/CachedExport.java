@@ -0,0 +1,24 @@
+package com.exportgenerator.demo.model;
+
+import java.nio.file.Path;
+
+/**
+ * A finished export stored in the on-disk export cache.
+ *
+ * @param hash     SHA-256 of the cache key, also the file's base name
+ * @param file     the cached file
+ * @param size     the file size in bytes
+ * @param fileName the download file name
+ */
+public record CachedExport(String hash, Path file, long size, String fileName) {
+
+    /**
+     * Returns the strong entity tag for this export. The key covers everything
+     * the bytes depend on, so its hash identifies the content.
+     *
+     * @return the quoted entity tag
+     */
+    public String etag() {
+        return "\"" + hash + "\"";
+    }
+}
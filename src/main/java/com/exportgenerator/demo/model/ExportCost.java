@@ -0,0 +1,16 @@
+package com.exportgenerator.demo.model;
+
+/**
+ * Estimated peak resources an export holds while it runs.
+ *
+ * @param memoryBytes heap held by workbooks, windows and buffers
+ * @param diskBytes   temp files written before the export completes
+ */
+public record ExportCost(long memoryBytes, long diskBytes) {
+
+    public static final ExportCost NONE = new ExportCost(0, 0);
+
+    public ExportCost plus(ExportCost other) {
+        return new ExportCost(memoryBytes + other.memoryBytes, diskBytes + other.diskBytes);
+    }
+}
@@ -0,0 +1,108 @@
+package com.exportgenerator.demo.model;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An asynchronous export and the artifact it produces.
+ */
+public class ExportJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final Path file;
+    private final long totalRows;
+    private final AtomicIntegerArray rowsWritten;
+    private final Instant createdAt;
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant completedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public ExportJob(String id, String fileName, Path file, int sheetCount, long totalRows, Instant createdAt) {
+        this.id = id;
+        this.fileName = fileName;
+        this.file = file;
+        this.totalRows = totalRows;
+        this.rowsWritten = new AtomicIntegerArray(sheetCount);
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void updateRowsWritten(int sheetIndex, int rows) {
+        rowsWritten.set(sheetIndex, rows);
+    }
+
+    /**
+     * Asks a queued or running job to stop. A running job stops at its next
+     * progress checkpoint.
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void markRunning() {
+        state = State.RUNNING;
+    }
+
+    public void markCompleted(Instant now) {
+        completedAt = now;
+        state = State.COMPLETED;
+    }
+
+    public void markFailed(Instant now, String message) {
+        error = message;
+        completedAt = now;
+        state = State.FAILED;
+    }
+
+    public void markCancelled(Instant now) {
+        completedAt = now;
+        state = State.CANCELLED;
+    }
+
+    /**
+     * Takes a consistent-enough snapshot of the job for status responses.
+     *
+     * @return the current status
+     */
+    public ExportJobStatus toStatus() {
+        int[] perSheet = new int[rowsWritten.length()];
+        long total = 0;
+        for (int i = 0; i < perSheet.length; i++) {
+            perSheet[i] = rowsWritten.get(i);
+            total += perSheet[i];
+        }
+        return new ExportJobStatus(id, state, fileName, perSheet, total, totalRows,
+                createdAt, completedAt, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.exportgenerator.demo.model;
+
+import java.time.Instant;
+
+/**
+ * Status of an export job as returned by {@code GET /api/exports/{id}}.
+ *
+ * @param id                   the job id
+ * @param state                the current state
+ * @param fileName             the download file name
+ * @param rowsWrittenPerSheet  data rows generated so far, per sheet
+ * @param rowsWritten          data rows generated so far, all sheets
+ * @param totalRows            data rows the finished export will contain
+ * @param createdAt            when the job was submitted
+ * @param completedAt          when the job finished, or {@code null}
+ * @param error                the failure message, or {@code null}
+ */
+public record ExportJobStatus(String id, ExportJob.State state, String fileName, int[] rowsWrittenPerSheet,
+        long rowsWritten, long totalRows, Instant createdAt, Instant completedAt, String error) {
+}
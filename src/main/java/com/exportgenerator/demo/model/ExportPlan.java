@@ -0,0 +1,174 @@
+package com.exportgenerator.demo.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How the rows of an export are split into sheets and workbooks.
+ *
+ * @param totalRows    the number of data rows
+ * @param rowsPerSheet the maximum number of data rows per sheet
+ * @param shards       the workbooks, in order
+ * @param selection    the selection the plan was narrowed to with
+ *                     {@link #select(ExportSelection)}
+ */
+public record ExportPlan(int totalRows, int rowsPerSheet, List<ExportShard> shards, ExportSelection selection) {
+
+    public ExportPlan(int totalRows, int rowsPerSheet, List<ExportShard> shards) {
+        this(totalRows, rowsPerSheet, shards, ExportSelection.ALL);
+    }
+
+    /**
+     * Splits {@code totalRows} into sheets of at most {@code rowsPerSheet} rows
+     * and groups the sheets into workbooks of at most {@code rowsPerWorkbook}
+     * rows. Sheets never straddle workbooks and are numbered across the whole
+     * export.
+     *
+     * @param totalRows       the number of data rows
+     * @param rowsPerSheet    the maximum number of data rows per sheet
+     * @param rowsPerWorkbook the maximum number of data rows per workbook
+     * @return the plan
+     */
+    public static ExportPlan of(int totalRows, int rowsPerSheet, int rowsPerWorkbook) {
+        return of(totalRows, rowsPerSheet, rowsPerWorkbook, null);
+    }
+
+    /**
+     * Lays out the export as {@link #of(int, int, int)} does, with every
+     * workbook compressed at the given level.
+     *
+     * @param totalRows       the number of data rows
+     * @param rowsPerSheet    the maximum number of data rows per sheet
+     * @param rowsPerWorkbook the maximum number of data rows per workbook
+     * @param compression     the package compression, or {@code null} for the
+     *                        engine's configured level
+     * @return the plan
+     */
+    public static ExportPlan of(int totalRows, int rowsPerSheet, int rowsPerWorkbook, ZipCompression compression) {
+        int sheetsPerWorkbook = Math.max(1, rowsPerWorkbook / rowsPerSheet);
+
+        List<ExportShard> shards = new ArrayList<>();
+        List<SheetSlice> sheets = new ArrayList<>();
+        int sheetIndex = 0;
+        int firstSheetIndex = 0;
+        for (long first = 1; first <= totalRows; first += rowsPerSheet) {
+            int rowCount = (int) Math.min(rowsPerSheet, totalRows - first + 1);
+            sheets.add(new SheetSlice(sheetName(sheetIndex), (int) first, rowCount));
+            sheetIndex++;
+            if (sheets.size() == sheetsPerWorkbook) {
+                shards.add(new ExportShard(shards.size(), firstSheetIndex, List.copyOf(sheets), compression));
+                firstSheetIndex = sheetIndex;
+                sheets.clear();
+            }
+        }
+        if (!sheets.isEmpty()) {
+            shards.add(new ExportShard(shards.size(), firstSheetIndex, List.copyOf(sheets), compression));
+        }
+        return new ExportPlan(totalRows, rowsPerSheet, List.copyOf(shards));
+    }
+
+    /**
+     * Names the sheet at the given position across the whole export.
+     *
+     * @param sheetIndex the zero-based sheet index
+     * @return the sheet name
+     */
+    public static String sheetName(int sheetIndex) {
+        return "Data_Sheet" + (sheetIndex + 1);
+    }
+
+    /**
+     * Narrows the plan to the selected sheets and rows. Sheets keep their
+     * names and row indexes, so each selected row holds exactly what it holds
+     * in the full export; sheets and workbooks left empty are dropped, and the
+     * remaining ones are renumbered for progress and bundle entry names.
+     *
+     * @param selection the sheets and rows to keep
+     * @return the narrowed plan, or this plan for {@link ExportSelection#ALL}
+     * @throws IllegalArgumentException if a selected sheet does not exist or
+     *                                  the selection matches no rows
+     */
+    public ExportPlan select(ExportSelection selection) {
+        if (selection.isAll()) {
+            return this;
+        }
+        int sheetCount = sheetCount();
+        if (!selection.sheets().isEmpty() && selection.sheets().last() > sheetCount) {
+            throw new IllegalArgumentException("sheets must be between 1 and " + sheetCount);
+        }
+
+        List<ExportShard> selected = new ArrayList<>();
+        long rows = 0;
+        int sheetNumber = 0;
+        int sheetIndex = 0;
+        for (ExportShard shard : shards) {
+            List<SheetSlice> sheets = new ArrayList<>();
+            int firstSheetIndex = sheetIndex;
+            for (SheetSlice sheet : shard.sheets()) {
+                sheetNumber++;
+                long from = Math.max(sheet.firstRowIndex(), selection.fromRow());
+                long to = Math.min((long) sheet.firstRowIndex() + sheet.rowCount(), selection.toRow());
+                if (!selection.includesSheet(sheetNumber) || from >= to) {
+                    continue;
+                }
+                sheets.add(new SheetSlice(sheet.name(), (int) from, (int) (to - from)));
+                rows += to - from;
+                sheetIndex++;
+            }
+            if (!sheets.isEmpty()) {
+                selected.add(new ExportShard(selected.size(), firstSheetIndex, List.copyOf(sheets),
+                        shard.compression(), shard.exportDate()));
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("The selection matches no rows of the export");
+        }
+        return new ExportPlan((int) rows, rowsPerSheet, List.copyOf(selected), selection);
+    }
+
+    /**
+     * Fixes the date the rows' dates count from, so that an export whose
+     * cache key names a date holds that date's rows even if generation runs
+     * past midnight.
+     *
+     * @param exportDate the date
+     * @return the plan with every workbook generated for {@code exportDate}
+     */
+    public ExportPlan withExportDate(LocalDate exportDate) {
+        List<ExportShard> dated = new ArrayList<>();
+        for (ExportShard shard : shards) {
+            dated.add(new ExportShard(shard.index(), shard.firstSheetIndex(), shard.sheets(), shard.compression(),
+                    exportDate));
+        }
+        return new ExportPlan(totalRows, rowsPerSheet, List.copyOf(dated), selection);
+    }
+
+    /**
+     * @return {@code true} if the export spans more than one workbook
+     */
+    public boolean isBundle() {
+        return shards.size() > 1;
+    }
+
+    public int sheetCount() {
+        int sheets = 0;
+        for (ExportShard shard : shards) {
+            sheets += shard.sheets().size();
+        }
+        return sheets;
+    }
+
+    /**
+     * Describes the layout for use in cache keys.
+     *
+     * @return the description
+     */
+    public String describe() {
+        int sheetsPerWorkbook = shards.isEmpty() ? 0 : shards.get(0).sheets().size();
+        ZipCompression compression = shards.isEmpty() ? null : shards.get(0).compression();
+        return "rows=" + totalRows + ",rowsPerSheet=" + rowsPerSheet + ",sheetsPerWorkbook=" + sheetsPerWorkbook
+                + (compression != null ? ",compression=" + compression : "")
+                + (selection.isAll() ? "" : "," + selection.describe());
+    }
+}
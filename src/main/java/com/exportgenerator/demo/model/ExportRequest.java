@@ -0,0 +1,70 @@
+package com.exportgenerator.demo.model;
+
+import java.security.Principal;
+
+/**
+ * Parameters of a single export.
+ *
+ * @param totalRows   the number of data rows across all sheets and workbooks
+ * @param owner       the subject of the caller's token, used for fair admission;
+ *                    does not affect the exported data
+ * @param compression the package compression, or {@code null} for the
+ *                    configured {@code export.compression.level}
+ * @param selection   the sheets and rows to deliver out of {@code totalRows};
+ *                    {@code null} is read as {@link ExportSelection#ALL}
+ */
+public record ExportRequest(int totalRows, String owner, ZipCompression compression, ExportSelection selection) {
+
+    public static final int DEFAULT_TOTAL_ROWS = 100000;
+
+    public static final String ANONYMOUS = "anonymous";
+
+    public ExportRequest(int totalRows) {
+        this(totalRows, ANONYMOUS);
+    }
+
+    public ExportRequest {
+        selection = selection != null ? selection : ExportSelection.ALL;
+    }
+
+    public ExportRequest(int totalRows, String owner) {
+        this(totalRows, owner, null);
+    }
+
+    public ExportRequest(int totalRows, String owner, ZipCompression compression) {
+        this(totalRows, owner, compression, ExportSelection.ALL);
+    }
+
+    public static ExportRequest defaults() {
+        return new ExportRequest(DEFAULT_TOTAL_ROWS);
+    }
+
+    /**
+     * Builds a request on behalf of the authenticated caller.
+     *
+     * @param totalRows the number of data rows
+     * @param principal the caller, or {@code null} when authentication is off
+     * @return the request
+     */
+    public static ExportRequest of(int totalRows, Principal principal) {
+        return new ExportRequest(totalRows, principal != null ? principal.getName() : ANONYMOUS);
+    }
+
+    /**
+     * @param compression the package compression, or {@code null} for the
+     *                    configured level
+     * @return a copy of this request with the given compression
+     */
+    public ExportRequest withCompression(ZipCompression compression) {
+        return new ExportRequest(totalRows, owner, compression, selection);
+    }
+
+    /**
+     * @param selection the sheets and rows to deliver, or {@code null} for the
+     *                  whole export
+     * @return a copy of this request with the given selection
+     */
+    public ExportRequest withSelection(ExportSelection selection) {
+        return new ExportRequest(totalRows, owner, compression, selection);
+    }
+}
@@ -0,0 +1,75 @@
+package com.exportgenerator.demo.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The part of an export a client asked for: some of its sheets, a range of
+ * row indexes, or both. Rows are a pure function of their index, so a
+ * selection costs only the rows it contains, and several clients can fetch
+ * disjoint selections of one export concurrently.
+ *
+ * @param sheets  the one-based sheet numbers to keep, empty for all sheets
+ * @param fromRow the first row index to keep, inclusive (row indexes start at 1)
+ * @param toRow   the row index to stop at, exclusive
+ */
+public record ExportSelection(SortedSet<Integer> sheets, int fromRow, int toRow) {
+
+    public static final ExportSelection ALL = new ExportSelection(null, 1, Integer.MAX_VALUE);
+
+    public ExportSelection {
+        sheets = Collections.unmodifiableSortedSet(sheets != null ? new TreeSet<>(sheets) : new TreeSet<>());
+        for (int sheet : sheets) {
+            if (sheet < 1) {
+                throw new IllegalArgumentException("sheets are numbered from 1");
+            }
+        }
+        if (fromRow < 1) {
+            throw new IllegalArgumentException("fromRow must be at least 1");
+        }
+        if (toRow <= fromRow) {
+            throw new IllegalArgumentException("toRow must be greater than fromRow");
+        }
+    }
+
+    /**
+     * Builds a selection from optional request parameters.
+     *
+     * @param sheets  the sheet numbers, or {@code null} for all sheets
+     * @param fromRow the first row index, or {@code null} to start at row 1
+     * @param toRow   the exclusive end row index, or {@code null} for no limit
+     * @return the selection
+     * @throws IllegalArgumentException if a sheet number or the row range is invalid
+     */
+    public static ExportSelection of(List<Integer> sheets, Integer fromRow, Integer toRow) {
+        if ((sheets == null || sheets.isEmpty()) && fromRow == null && toRow == null) {
+            return ALL;
+        }
+        return new ExportSelection(sheets != null ? new TreeSet<>(sheets) : null,
+                fromRow != null ? fromRow : 1, toRow != null ? toRow : Integer.MAX_VALUE);
+    }
+
+    public boolean isAll() {
+        return sheets.isEmpty() && fromRow == 1 && toRow == Integer.MAX_VALUE;
+    }
+
+    public boolean includesSheet(int sheetNumber) {
+        return sheets.isEmpty() || sheets.contains(sheetNumber);
+    }
+
+    /**
+     * Describes the selection for use in cache keys.
+     *
+     * @return the description, empty for the whole export
+     */
+    public String describe() {
+        if (isAll()) {
+            return "";
+        }
+        return "sheets=" + sheets.stream().map(String::valueOf).collect(Collectors.joining(";"))
+                + ",fromRow=" + fromRow + ",toRow=" + toRow;
+    }
+}
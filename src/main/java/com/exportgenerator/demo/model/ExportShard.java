@@ -0,0 +1,36 @@
+package com.exportgenerator.demo.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The sheets that go into one workbook of an export.
+ *
+ * @param index           the position of the workbook in the export
+ * @param firstSheetIndex the export-wide index of the first sheet, used to
+ *                        report progress across workbooks
+ * @param sheets          the sheets, in order
+ * @param compression     the package compression, or {@code null} for the
+ *                        engine's configured level
+ * @param exportDate      the date the rows' dates count from, or
+ *                        {@code null} for the current UTC date
+ */
+public record ExportShard(int index, int firstSheetIndex, List<SheetSlice> sheets, ZipCompression compression,
+        LocalDate exportDate) {
+
+    public ExportShard(int index, int firstSheetIndex, List<SheetSlice> sheets) {
+        this(index, firstSheetIndex, sheets, null);
+    }
+
+    public ExportShard(int index, int firstSheetIndex, List<SheetSlice> sheets, ZipCompression compression) {
+        this(index, firstSheetIndex, sheets, compression, null);
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (SheetSlice sheet : sheets) {
+            rows += sheet.rowCount();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,30 @@
+package com.exportgenerator.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One sheet of an export: its name and the contiguous range of row indexes
+ * it holds.
+ *
+ * @param name          the sheet name
+ * @param firstRowIndex the row index of the first data row (row indexes start at 1)
+ * @param rowCount      the number of data rows
+ */
+public record SheetSlice(String name, int firstRowIndex, int rowCount) {
+
+    /**
+     * Lays out equally sized sheets back to back, starting at row index 1.
+     *
+     * @param rowsPerSheet the number of rows per sheet
+     * @param sheetNames   the names of the sheets
+     * @return the sheets, in order
+     */
+    public static List<SheetSlice> uniform(int rowsPerSheet, String[] sheetNames) {
+        List<SheetSlice> sheets = new ArrayList<>(sheetNames.length);
+        for (int sheetIndex = 0; sheetIndex < sheetNames.length; sheetIndex++) {
+            sheets.add(new SheetSlice(sheetNames[sheetIndex], 1 + sheetIndex * rowsPerSheet, rowsPerSheet));
+        }
+        return sheets;
+    }
+}
@@ -0,0 +1,58 @@
+package com.exportgenerator.demo.model;
+
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * How hard the parts of a workbook package are compressed, trading file size
+ * for generation time.
+ */
+public enum ZipCompression {
+
+    /**
+     * No compression. Parts are still written as deflate streams made of
+     * stored blocks, so they can be streamed without knowing their size; the
+     * overhead is 5 bytes per 64 KB.
+     */
+    STORED(Deflater.NO_COMPRESSION),
+
+    FAST(Deflater.BEST_SPEED),
+
+    DEFAULT(Deflater.DEFAULT_COMPRESSION),
+
+    MAX(Deflater.BEST_COMPRESSION);
+
+    private final int level;
+
+    ZipCompression(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @return the {@link Deflater} level
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * Parses a request parameter, ignoring case.
+     *
+     * @param value the parameter value
+     * @return the compression
+     * @throws IllegalArgumentException if the value is not a known level
+     */
+    public static ZipCompression parse(String value) {
+        for (ZipCompression compression : values()) {
+            if (compression.name().equalsIgnoreCase(value)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("compression must be one of stored, fast, default or max");
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
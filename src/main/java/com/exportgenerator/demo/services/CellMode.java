@@ -0,0 +1,20 @@
+package com.exportgenerator.demo.services;
+
+/**
+ * Controls how export cells are encoded.
+ */
+public enum CellMode {
+
+    /**
+     * Every value except the ID is written as an inline string, matching the
+     * original export layout.
+     */
+    INLINE,
+
+    /**
+     * Dates are written as numeric date cells sharing a single cell style, and
+     * low-cardinality text columns go through a bounded shared-strings table
+     * where the engine supports it.
+     */
+    TYPED
+}
@@ -0,0 +1,28 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.services.arrow.ArrowStreamWriter;
+
+/**
+ * Export formats for machine consumers.
+ */
+public enum ColumnarFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    ARROW(ArrowStreamWriter.CONTENT_TYPE, "arrows");
+
+    private final String contentType;
+    private final String extension;
+
+    ColumnarFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,209 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.services.io.BufferedByteWriter;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.schema.RowPlan;
+import com.exportgenerator.demo.services.serviceinterfaces.DelimitedExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+
+import static com.exportgenerator.demo.services.io.BufferedByteWriter.ascii;
+
+/**
+ * Streams the export as CSV or TSV with the same columns as the Excel engines.
+ * <p>
+ * Rows are formatted into one reusable byte buffer that is handed to the
+ * response whenever it fills, so memory use does not depend on the row count.
+ */
+@Service
+public class DelimitedExportServiceImpl implements DelimitedExportService {
+
+    static final String ENGINE = "delimited";
+
+    /**
+     * Size of the reusable byte buffer rows are formatted into.
+     */
+    @Value("${export.delimited.buffer-size:262144}")
+    private int bufferSize = 262144;
+
+    /**
+     * Largest row count a single request may ask for.
+     */
+    @Value("${export.delimited.max-rows:10000000}")
+    private int maxRows = 10000000;
+
+    /**
+     * Whether responses are gzip-encoded for clients that accept it.
+     */
+    @Value("${export.delimited.gzip:true}")
+    private boolean gzipEnabled = true;
+
+    private ExportMetrics exportMetrics = ExportMetrics.disabled();
+
+    public DelimitedExportServiceImpl() {
+        // Empty constructor
+    }
+
+    @Autowired
+    void setExportMetrics(ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    @Override
+    public void export(DelimitedFormat format, int rows, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (rows < 1 || rows > maxRows) {
+            throw new IllegalArgumentException("rows must be between 1 and " + maxRows);
+        }
+
+        String fileName = ExcelExportServiceImpl.exportFileName(LocalDateTime.now(), format.getExtension());
+        boolean gzip = gzipEnabled && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        ExportMetrics.Recording recording = exportMetrics.start(ENGINE, format.getExtension());
+        try {
+            OutputStream out = recording.count(response.getOutputStream());
+            long start = System.nanoTime();
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, bufferSize);
+                write(format, rows, gzipOut);
+                gzipOut.finish();
+            } else {
+                write(format, rows, out);
+            }
+            exportMetrics.recordPhase(ENGINE, format.getExtension(), ExportMetrics.PHASE_WRITE,
+                    System.nanoTime() - start);
+            recording.succeeded(rows);
+        } catch (IOException | RuntimeException e) {
+            recording.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the header line and data rows to the given stream.
+     *
+     * @param format the output format
+     * @param rows   the number of data rows
+     * @param out    the destination stream, left open
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void write(DelimitedFormat format, int rows, OutputStream out) throws IOException {
+        BufferedByteWriter writer = new BufferedByteWriter(out, bufferSize);
+        byte[] delimiter = ascii(String.valueOf(format.getDelimiter()));
+        byte[] lineSeparator = ascii(format.getLineSeparator());
+        RowPlan plan = ExcelExportServiceImpl.SCHEMA.compile(LocalDate.now(ZoneOffset.UTC));
+        int columnCount = plan.columnCount();
+
+        byte[] isoDate = utf8(format.field(plan.isoDate()));
+        byte[][] prefixes = new byte[columnCount][];
+        byte[][] suffixes = new byte[columnCount][];
+        byte[][][] cycleFields = new byte[columnCount][][];
+        for (int column = 0; column < columnCount; column++) {
+            if (column > 0) {
+                writer.write(delimiter);
+            }
+            writer.write(utf8(format.field(plan.columnNames()[column])));
+
+            String[] around = surroundingFields(format, plan.prefix(column), plan.suffix(column));
+            prefixes[column] = utf8(around[0]);
+            suffixes[column] = utf8(around[1]);
+            String[] values = plan.cycleValues(column);
+            cycleFields[column] = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                cycleFields[column][i] = utf8(format.field(values[i]));
+            }
+        }
+        writer.write(lineSeparator);
+
+        for (int rowIndex = 1; rowIndex <= rows; rowIndex++) {
+            for (int column = 0; column < columnCount; column++) {
+                if (column > 0) {
+                    writer.write(delimiter);
+                }
+                switch (plan.generator(column)) {
+                    case ROW_INDEX -> writer.write(rowIndex);
+                    case INDEXED_TEXT -> {
+                        writer.write(prefixes[column]);
+                        writer.write(rowIndex);
+                        writer.write(suffixes[column]);
+                    }
+                    case EXPORT_DATE -> writer.write(isoDate);
+                    case CYCLE -> writer.write(cycleFields[column][plan.cycleIndex(column, rowIndex)]);
+                }
+            }
+            writer.write(lineSeparator);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Encodes the text around the row index of an indexed field. When the
+     * whole field needs CSV quoting, the opening quote goes into the prefix and
+     * the closing one into the suffix; digits never need escaping.
+     *
+     * @return the prefix and suffix field text
+     */
+    private static String[] surroundingFields(DelimitedFormat format, String prefix, String suffix) {
+        String text = prefix + suffix;
+        String field = format.field(text);
+        if (field.equals(text)) {
+            return new String[] { prefix, suffix };
+        }
+        if (format == DelimitedFormat.CSV) {
+            return new String[] { "\"" + prefix.replace("\"", "\"\""), suffix.replace("\"", "\"\"") + "\"" };
+        }
+        return new String[] { format.field(prefix), format.field(suffix) };
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header allows gzip.
+     *
+     * @param acceptEncoding the header value, may be {@code null}
+     * @return {@code true} if gzip is acceptable
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.equals("q=0") || parameter.matches("q=0\\.0*")) {
+                    rejected = true;
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
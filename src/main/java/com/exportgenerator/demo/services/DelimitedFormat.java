@@ -0,0 +1,57 @@
+package com.exportgenerator.demo.services;
+
+/**
+ * Plain-text export formats.
+ */
+public enum DelimitedFormat {
+
+    CSV(',', "\r\n", "text/csv", "csv"),
+    TSV('\t', "\n", "text/tab-separated-values", "tsv");
+
+    private final char delimiter;
+    private final String lineSeparator;
+    private final String contentType;
+    private final String extension;
+
+    DelimitedFormat(char delimiter, String lineSeparator, String contentType, String extension) {
+        this.delimiter = delimiter;
+        this.lineSeparator = lineSeparator;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Quotes or cleans a constant value so it can be written as one field.
+     * CSV fields containing a delimiter, quote or line break are quoted per
+     * RFC 4180; TSV has no quoting, so tabs and line breaks become spaces.
+     *
+     * @param value the raw value
+     * @return the field text
+     */
+    public String field(String value) {
+        if (this == TSV) {
+            return value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+        }
+        if (value.indexOf(delimiter) < 0 && value.indexOf('"') < 0 && value.indexOf('\r') < 0
+                && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
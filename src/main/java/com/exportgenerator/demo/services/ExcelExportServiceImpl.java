@@ -1,46 +1,178 @@
 package com.exportgenerator.demo.services;
 
 import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.SheetSlice;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.poi.SpillManager;
+import com.exportgenerator.demo.services.poi.PoiRowWriter;
+import com.exportgenerator.demo.services.poi.SpillTrackingWorkbook;
+import com.exportgenerator.demo.services.rowsource.ExportRowSource;
+import com.exportgenerator.demo.services.schema.ExportColumn;
+import com.exportgenerator.demo.services.schema.ExportSchema;
+import com.exportgenerator.demo.services.schema.RowPlan;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.DeferredSXSSFSheet;
+import org.apache.poi.xssf.streaming.DeferredSXSSFWorkbook;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Service implementation for exporting data to Excel.
+ * Service implementation for exporting data to Excel using the POI SXSSF
+ * streaming workbook. This is the default engine ({@code export.engine=poi}).
  */
 @Service
+@ConditionalOnProperty(name = "export.engine", havingValue = "poi", matchIfMissing = true)
 public class ExcelExportServiceImpl implements ExcelExportService {
 
-    static final List<String> POKEMON_NAMES = new ArrayList<>();
+    /**
+     * Bumped whenever a change to this engine alters the bytes it produces, so
+     * cached exports from an older version are not served.
+     */
+    static final int ENGINE_VERSION = 1;
 
-    static {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try (InputStream inputStream = ExcelExportServiceImpl.class.getResourceAsStream("/pokemon_names.json")) {
-            POKEMON_NAMES.addAll(objectMapper.readValue(inputStream, new TypeReference<List<String>>() {
-            }));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load Pokémon names", e);
-        }
-    }
+    static final String ENGINE = "poi";
+
+    static final int TOTAL_ROWS = 100000;
+
+    static final String[] SHEET_NAMES = { "Data_Sheet1", "Data_Sheet2", "Data_Sheet3", "Data_Sheet4", "Data_Sheet5" };
+
+    /**
+     * The Pokémon names, compiled from {@code pokemon_names.json} at build time.
+     */
+    static final List<String> POKEMON_NAMES = new ArrayList<>(Arrays.asList(PokemonNames.VALUES));
+
+    /**
+     * The export layout shared by every engine.
+     */
+    static final ExportSchema SCHEMA = schema();
+
+    static final String[] COLUMN_NAMES = SCHEMA.columnNames();
+
+    /**
+     * Largest number of data rows that fit on one sheet below the header row.
+     */
+    static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    /**
+     * Number of rows between progress updates.
+     */
+    static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Workbook, styles and package writer overhead, independent of row count.
+     */
+    static final long BASE_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * Heap held by one cell while its row is in the SXSSF window.
+     */
+    static final long WINDOW_CELL_BYTES = 200;
+
+    /**
+     * Uncompressed temp-file XML per cell (about 59 bytes measured for inline
+     * cells).
+     */
+    static final long SPILL_CELL_BYTES = 64;
+
+    /**
+     * Gzip-compressed temp-file XML per cell; the repetitive row XML
+     * compresses about as well as the finished package.
+     */
+    static final long COMPRESSED_SPILL_CELL_BYTES = 8;
+
+    /**
+     * Deflated sheet XML per data row (about 130 bytes measured at the default
+     * level, 155 at the fast one), for the compressed copy of a part that
+     * parallel deflate holds until the part is complete.
+     */
+    static final long COMPRESSED_ROW_BYTES = 160;
+
+    /**
+     * Number of sheets filled concurrently per export. A value of 1 keeps the
+     * original sequential behaviour on the request thread.
+     */
+    @Value("${export.parallelism:1}")
+    private int parallelism = 1;
+
+    /**
+     * Cell encoding; {@code typed} writes the date columns as numeric date
+     * cells sharing one {@link CellStyle}. SXSSF can only share strings
+     * workbook-wide, so text stays inline in this engine.
+     */
+    @Value("${export.cell-mode:inline}")
+    private CellMode cellMode = CellMode.INLINE;
+
+    /**
+     * Generates rows while the package is written instead of spilling them to
+     * temp files first, so output starts immediately and a client that goes
+     * away is noticed within one row window. Sheets are then filled one after
+     * another, so a {@code parallelism} above 1 falls back to spilling.
+     */
+    @Value("${export.poi.streaming:true}")
+    private boolean streaming = true;
+
+    /**
+     * Compression of the package parts when the request does not choose one.
+     */
+    @Value("${export.compression.level:default}")
+    private ZipCompression compression = ZipCompression.DEFAULT;
+
+    private ExportMetrics exportMetrics = ExportMetrics.disabled();
+
+    private SpillManager spillManager = SpillManager.defaults();
+
+    private DeflatePool deflatePool = DeflatePool.disabled();
 
     public ExcelExportServiceImpl() {
         // Empty constructor
     }
 
+    @Autowired
+    void setExportMetrics(ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    @Autowired
+    void setSpillManager(SpillManager spillManager) {
+        this.spillManager = spillManager;
+    }
+
+    @Autowired
+    void setDeflatePool(DeflatePool deflatePool) {
+        this.deflatePool = deflatePool;
+    }
+
     /**
      * Getter for POKEMON_NAMES.
      *
@@ -50,6 +182,101 @@ public class ExcelExportServiceImpl implements ExcelExportService {
         return POKEMON_NAMES;
     }
 
+    void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    void setCellMode(CellMode cellMode) {
+        this.cellMode = cellMode;
+    }
+
+    void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    void setCompression(ZipCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Builds the download file name for an export started now.
+     *
+     * @return the file name
+     */
+    static String exportFileName() {
+        return exportFileName(LocalDateTime.now());
+    }
+
+    /**
+     * Builds the download file name for an export generated at the given time.
+     *
+     * @param generatedAt the local generation time
+     * @return the file name
+     */
+    static String exportFileName(LocalDateTime generatedAt) {
+        return exportFileName(generatedAt, "xlsx");
+    }
+
+    /**
+     * Builds the download file name for an export in the given format.
+     *
+     * @param generatedAt the local generation time
+     * @param extension   the file extension without the dot
+     * @return the file name
+     */
+    static String exportFileName(LocalDateTime generatedAt, String extension) {
+        return "data_" + generatedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "." + extension;
+    }
+
+    /**
+     * Describes the engine settings that, together with the export layout and
+     * the UTC date, determine the bytes of an export from this engine.
+     *
+     * @return the variant description
+     */
+    @Override
+    public String variant() {
+        return ENGINE + "/" + ENGINE_VERSION + "/" + cellMode + "/" + compression
+                + (deflatePool.isParallel() ? "/parallel" : "");
+    }
+
+    @Override
+    public String engine() {
+        return ENGINE;
+    }
+
+    /**
+     * A streaming export keeps one window of rows in memory and spills
+     * nothing. Otherwise every sheet keeps a window in memory and every row is
+     * spilled to a temp file before the package is written. Parallel deflate
+     * adds its buffers either way.
+     */
+    @Override
+    public ExportCost estimateCost(ExportShard shard) {
+        long deflateBytes = deflatePool.estimateMemory(largestSheetRows(shard) * COMPRESSED_ROW_BYTES);
+        if (isStreaming()) {
+            long windowCells = (long) COLUMN_NAMES.length * spillManager.window();
+            return new ExportCost(BASE_MEMORY_BYTES + windowCells * WINDOW_CELL_BYTES + deflateBytes, 0);
+        }
+        long cells = (long) COLUMN_NAMES.length * shard.rowCount();
+        long windowCells = (long) COLUMN_NAMES.length * spillManager.window() * shard.sheets().size();
+        long spillCellBytes = spillManager.compress() ? COMPRESSED_SPILL_CELL_BYTES : SPILL_CELL_BYTES;
+        return new ExportCost(BASE_MEMORY_BYTES + windowCells * WINDOW_CELL_BYTES + deflateBytes,
+                cells * spillCellBytes);
+    }
+
+    static long largestSheetRows(ExportShard shard) {
+        long rows = 0;
+        for (SheetSlice sheet : shard.sheets()) {
+            rows = Math.max(rows, sheet.rowCount());
+        }
+        return rows;
+    }
+
+    private boolean isStreaming() {
+        return streaming && parallelism <= 1;
+    }
+
     /**
      * Exports data to an Excel file and writes it to the HTTP response.
      *
@@ -58,44 +285,343 @@ public class ExcelExportServiceImpl implements ExcelExportService {
      */
     @Override
     public void exportToExcel(HttpServletResponse response) throws IOException {
-        String fileName = "data_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
-                + ".xlsx";
+        String fileName = exportFileName();
 
-        Workbook workbook = new SXSSFWorkbook();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
 
-        int totalRows = 100000;
-        int rowsPerSheet = totalRows / 5;
-        String[] sheetNames = { "Data_Sheet1", "Data_Sheet2", "Data_Sheet3", "Data_Sheet4", "Data_Sheet5" };
+        writeExport(response.getOutputStream(), TOTAL_ROWS / SHEET_NAMES.length, SHEET_NAMES);
+    }
 
-        buildExport(workbook, rowsPerSheet, sheetNames);
+    /**
+     * Writes the full export to the given stream, reporting progress as rows are
+     * generated.
+     *
+     * @param out      the destination stream, left open
+     * @param listener the progress listener
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportProgressListener listener) throws IOException {
+        writeExport(out, SheetSlice.uniform(TOTAL_ROWS / SHEET_NAMES.length, SHEET_NAMES), listener);
+    }
 
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    /**
+     * Writes one workbook holding the sheets of the given shard, with dates
+     * counted from the shard's export date when it has one.
+     *
+     * @param out      the destination stream, left open
+     * @param shard    the sheets to write
+     * @param listener the progress listener, called with workbook-local sheet indexes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportShard shard, ExportProgressListener listener) throws IOException {
+        writeExport(out, shard.sheets(), shard.compression() != null ? shard.compression() : compression,
+                shard.exportDate() != null ? shard.exportDate() : LocalDate.now(ZoneOffset.UTC), listener);
+    }
+
+    void writeExport(OutputStream out, int rowsPerSheet, String[] sheetNames) throws IOException {
+        writeExport(out, SheetSlice.uniform(rowsPerSheet, sheetNames), ExportProgressListener.NONE);
+    }
+
+    /**
+     * Writes a workbook with the rows pulled from the given source, starting a
+     * new sheet every {@code rowsPerSheet} rows.
+     *
+     * @param out          the destination stream, left open
+     * @param source       the row source; the caller closes it
+     * @param rowsPerSheet the maximum number of data rows per sheet
+     * @param listener     the progress listener
+     * @throws IOException if reading the source or writing fails
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportRowSource source, int rowsPerSheet, ExportProgressListener listener)
+            throws IOException {
+        try (SpillTrackingWorkbook workbook = spillManager.newWorkbook()) {
+            workbook.setPackageCompression(deflatePool, compression);
+            long start = System.nanoTime();
+            String[] columnNames = source.columnNames();
+            int rowsInSheet = Math.min(rowsPerSheet, MAX_ROWS_PER_SHEET);
+
+            Sheet sheet = createSourceSheet(workbook, columnNames);
+            int sheetIndex = 0;
+            int rowNumber = 0;
+            while (source.next()) {
+                if (rowNumber == rowsInSheet) {
+                    listener.rowsWritten(sheetIndex++, rowNumber);
+                    sheet = createSourceSheet(workbook, columnNames);
+                    rowNumber = 0;
+                }
+                Row row = sheet.createRow(++rowNumber);
+                for (int column = 0; column < columnNames.length; column++) {
+                    if (source.isNull(column)) {
+                        continue;
+                    }
+                    if (source.isNumeric(column)) {
+                        row.createCell(column).setCellValue(source.getLong(column));
+                    } else {
+                        row.createCell(column).setCellValue(source.getText(column).toString());
+                    }
+                }
+                if (rowNumber % PROGRESS_INTERVAL == 0) {
+                    listener.rowsWritten(sheetIndex, rowNumber);
+                }
+            }
+            listener.rowsWritten(sheetIndex, rowNumber);
+            long built = System.nanoTime();
+            long spilledWhileBuilding = workbook.getSpillNanos();
+
+            workbook.write(out);
+            recordPhases(workbook, start, built, spilledWhileBuilding, System.nanoTime());
+        }
+    }
 
-        workbook.write(response.getOutputStream());
-        workbook.close();
+    private static Sheet createSourceSheet(Workbook workbook, String[] columnNames) {
+        Sheet sheet = workbook.createSheet(ExportPlan.sheetName(workbook.getNumberOfSheets()));
+        Row headerRow = sheet.createRow(0);
+        for (int column = 0; column < columnNames.length; column++) {
+            headerRow.createCell(column).setCellValue(columnNames[column]);
+        }
+        return sheet;
+    }
+
+    /**
+     * Builds the workbook and writes the finished package to the given stream.
+     * The workbook's temp files are deleted whether or not the export
+     * succeeds, including when the client goes away mid-write.
+     *
+     * @param out      the destination stream, left open
+     * @param sheets   the sheets to write
+     * @param listener the progress listener
+     * @throws IOException if an I/O error occurs
+     */
+    void writeExport(OutputStream out, List<SheetSlice> sheets, ExportProgressListener listener) throws IOException {
+        writeExport(out, sheets, compression, LocalDate.now(ZoneOffset.UTC), listener);
+    }
+
+    private void writeExport(OutputStream out, List<SheetSlice> sheets, ZipCompression compression,
+            LocalDate exportDate, ExportProgressListener listener) throws IOException {
+        if (isStreaming()) {
+            writeStreamingExport(out, sheets, compression, exportDate, listener);
+            return;
+        }
+        try (SpillTrackingWorkbook workbook = spillManager.newWorkbook()) {
+            workbook.setPackageCompression(deflatePool, compression);
+            long start = System.nanoTime();
+            buildExport(workbook, sheets, exportDate, listener);
+            long built = System.nanoTime();
+            long spilledWhileBuilding = workbook.getSpillNanos();
+
+            workbook.write(out);
+            recordPhases(workbook, start, built, spilledWhileBuilding, System.nanoTime());
+        }
+    }
+
+    /**
+     * Writes the package while generating the rows of each sheet as its part
+     * is reached. Rows go straight from the window into the zip stream, so
+     * there are no spill files and a failed write stops generation at once.
+     * Building and writing are interleaved row by row, so the build phase is
+     * the time spent filling cells and the write phase is the rest: creating
+     * each row flushes the oldest one in the window as XML through deflate to
+     * {@code out}. Nothing is recorded as spill. POI wraps anything the row generator throws in an
+     * {@link IOException}; an {@link ExportAbortedException} is unwrapped so
+     * callers see why the export stopped.
+     */
+    private void writeStreamingExport(OutputStream out, List<SheetSlice> slices, ZipCompression compression,
+            LocalDate exportDate, ExportProgressListener listener) throws IOException {
+        DeferredSXSSFWorkbook workbook = new DeferredSXSSFWorkbook(spillManager.window()) {
+            @Override
+            protected ZipArchiveOutputStream createArchiveOutputStream(OutputStream archiveOut) {
+                ZipArchiveOutputStream zip = deflatePool.newZip(archiveOut, compression);
+                zip.setUseZip64(zip64Mode);
+                return zip;
+            }
+        };
+        try {
+            long start = System.nanoTime();
+            RowPlan plan = SCHEMA.compile(exportDate);
+            CellStyle dateStyle = cellMode == CellMode.TYPED ? createDateStyle(workbook) : null;
+            AtomicLong buildNanos = new AtomicLong();
+
+            for (int sheetIndex = 0; sheetIndex < slices.size(); sheetIndex++) {
+                SheetSlice slice = slices.get(sheetIndex);
+                DeferredSXSSFSheet sheet = workbook.createSheet(slice.name());
+                int index = sheetIndex;
+                sheet.setRowGenerator(generated -> {
+                    createHeaderRow(generated);
+                    populateTimedSheet(generated, index, slice, plan, dateStyle, listener, buildNanos);
+                });
+            }
+
+            try {
+                workbook.write(out);
+            } catch (IOException e) {
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof ExportAbortedException aborted) {
+                        throw aborted;
+                    }
+                }
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_BUILD, buildNanos.get());
+            exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_WRITE, elapsed - buildNanos.get());
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Records the build, spill and write phases. Rows flushed to temp files
+     * count as spill whether that happens while building or while writing, so
+     * the three phases add up to the elapsed time of a sequential export.
+     */
+    private void recordPhases(SpillTrackingWorkbook workbook, long start, long built, long spilledWhileBuilding,
+            long written) {
+        long spillNanos = workbook.getSpillNanos();
+        exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_BUILD, built - start - spilledWhileBuilding);
+        exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_SPILL, spillNanos);
+        exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_WRITE,
+                written - built - (spillNanos - spilledWhileBuilding));
+        exportMetrics.recordSpill(ENGINE, workbook.getSpillBytes());
     }
 
     /**
      * Builds the Excel export by creating sheets and populating rows.
+     * <p>
+     * Sheets and their header rows are always created in order on the calling
+     * thread. When {@code parallelism} is greater than 1 and the workbook is an
+     * {@link SXSSFWorkbook}, the data rows of each sheet are then filled on a
+     * bounded pool; every SXSSF sheet flushes to its own temp XML part, so the
+     * assembled package is identical to the sequential one.
      *
      * @param workbook     the workbook
      * @param rowsPerSheet the number of rows per sheet
      * @param sheetNames   the names of the sheets
      */
     void buildExport(Workbook workbook, int rowsPerSheet, String[] sheetNames) {
-        for (int sheetIndex = 0; sheetIndex < 5; sheetIndex++) {
-            Sheet sheet = workbook.createSheet(sheetNames[sheetIndex]);
-            createHeaderRow(sheet);
+        buildExport(workbook, SheetSlice.uniform(rowsPerSheet, sheetNames), ExportProgressListener.NONE);
+    }
 
-            LocalDateTime utcNow = LocalDateTime.now(ZoneOffset.UTC);
+    /**
+     * Builds the Excel export, reporting progress to the given listener.
+     *
+     * @param workbook the workbook
+     * @param slices   the sheets to create and the rows each one holds
+     * @param listener the progress listener
+     */
+    void buildExport(Workbook workbook, List<SheetSlice> slices, ExportProgressListener listener) {
+        buildExport(workbook, slices, LocalDate.now(ZoneOffset.UTC), listener);
+    }
+
+    private void buildExport(Workbook workbook, List<SheetSlice> slices, LocalDate exportDate,
+            ExportProgressListener listener) {
+        RowPlan plan = SCHEMA.compile(exportDate);
+        CellStyle dateStyle = cellMode == CellMode.TYPED ? createDateStyle(workbook) : null;
 
-            for (int i = 1; i <= rowsPerSheet; i++) {
-                int rowIndex = i + (sheetIndex * rowsPerSheet);
-                Row row = sheet.createRow(i);
-                populateRow(row, rowIndex, utcNow);
+        Sheet[] sheets = new Sheet[slices.size()];
+        for (int sheetIndex = 0; sheetIndex < sheets.length; sheetIndex++) {
+            sheets[sheetIndex] = workbook.createSheet(slices.get(sheetIndex).name());
+            createHeaderRow(sheets[sheetIndex]);
+        }
+
+        int threads = Math.min(parallelism, sheets.length);
+        if (threads <= 1 || !(workbook instanceof SXSSFWorkbook)) {
+            for (int sheetIndex = 0; sheetIndex < sheets.length; sheetIndex++) {
+                populateSheet(sheets[sheetIndex], sheetIndex, slices.get(sheetIndex), plan, dateStyle, listener);
             }
+            return;
         }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(sheets.length);
+            for (int sheetIndex = 0; sheetIndex < sheets.length; sheetIndex++) {
+                Sheet sheet = sheets[sheetIndex];
+                SheetSlice slice = slices.get(sheetIndex);
+                int index = sheetIndex;
+                futures.add(executor.submit(() -> populateSheet(sheet, index, slice, plan, dateStyle, listener)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building export", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ExportAbortedException aborted) {
+                throw aborted;
+            }
+            throw new IllegalStateException("Failed to build export sheet", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Populates the data rows of a single sheet.
+     *
+     * @param sheet      the sheet to populate
+     * @param sheetIndex the position of the sheet in the workbook
+     * @param slice      the rows the sheet holds
+     * @param plan       the compiled export layout
+     * @param dateStyle  the shared date style, or {@code null} for string dates
+     * @param listener   the progress listener
+     */
+    void populateSheet(Sheet sheet, int sheetIndex, SheetSlice slice, RowPlan plan, CellStyle dateStyle,
+            ExportProgressListener listener) {
+        PoiRowWriter writer = new PoiRowWriter(plan, dateStyle);
+        int rowCount = slice.rowCount();
+        for (int i = 1; i <= rowCount; i++) {
+            int rowIndex = slice.firstRowIndex() + i - 1;
+            Row row = sheet.createRow(i);
+            writer.writeRow(row, rowIndex);
+            if (i % PROGRESS_INTERVAL == 0) {
+                listener.rowsWritten(sheetIndex, i);
+            }
+        }
+        listener.rowsWritten(sheetIndex, rowCount);
+    }
+
+    /**
+     * Populates the sheet like
+     * {@link #populateSheet(Sheet, int, SheetSlice, RowPlan, CellStyle, ExportProgressListener)},
+     * adding the time spent filling cells to {@code buildNanos}. Creating a
+     * row is left out, since in a streamed sheet that is where the window
+     * flushes a row to the package.
+     */
+    private void populateTimedSheet(Sheet sheet, int sheetIndex, SheetSlice slice, RowPlan plan, CellStyle dateStyle,
+            ExportProgressListener listener, AtomicLong buildNanos) {
+        PoiRowWriter writer = new PoiRowWriter(plan, dateStyle);
+        int rowCount = slice.rowCount();
+        long nanos = 0;
+        for (int i = 1; i <= rowCount; i++) {
+            int rowIndex = slice.firstRowIndex() + i - 1;
+            Row row = sheet.createRow(i);
+            long begin = System.nanoTime();
+            writer.writeRow(row, rowIndex);
+            nanos += System.nanoTime() - begin;
+            if (i % PROGRESS_INTERVAL == 0) {
+                listener.rowsWritten(sheetIndex, i);
+            }
+        }
+        buildNanos.addAndGet(nanos);
+        listener.rowsWritten(sheetIndex, rowCount);
+    }
+
+    /**
+     * Creates the single {@code yyyy-mm-dd} style shared by all date cells.
+     *
+     * @param workbook the workbook
+     * @return the date cell style
+     */
+    CellStyle createDateStyle(Workbook workbook) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+        return dateStyle;
     }
 
     /**
@@ -105,59 +631,53 @@ public class ExcelExportServiceImpl implements ExcelExportService {
      */
     void createHeaderRow(Sheet sheet) {
         Row headerRow = sheet.createRow(0);
-        headerRow.createCell(0).setCellValue("ID");
-        headerRow.createCell(1).setCellValue("Name");
-        headerRow.createCell(2).setCellValue("Value");
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            headerRow.createCell(i).setCellValue(COLUMN_NAMES[i]);
+        }
+    }
+
+    /**
+     * Builds the export layout: an ID, indexed text and dates, the Pokémon
+     * name cycle, emails, address fields and miscellaneous text.
+     *
+     * @return the schema
+     */
+    private static ExportSchema schema() {
+        List<ExportColumn> columns = new ArrayList<>();
+        columns.add(ExportColumn.rowIndex("ID"));
+        columns.add(ExportColumn.indexedText("Name", "Name ", ""));
+        columns.add(ExportColumn.indexedText("Value", "Value ", ""));
 
         for (int i = 0; i < 10; i++) {
-            headerRow.createCell(3 + i).setCellValue("StartDate_" + (char) ('A' + i));
+            columns.add(ExportColumn.exportDate("StartDate_" + (char) ('A' + i)));
         }
 
-        headerRow.createCell(13).setCellValue("PokemonName");
+        columns.add(ExportColumn.cycle("PokemonName", POKEMON_NAMES));
 
         for (int i = 0; i < 4; i++) {
-            headerRow.createCell(14 + i).setCellValue("Email_" + (i + 1));
+            columns.add(ExportColumn.indexedText("Email_" + (i + 1), "email", "_" + (i + 1) + "@example.com"));
         }
 
-        headerRow.createCell(18).setCellValue("Country");
-        headerRow.createCell(19).setCellValue("City");
-        headerRow.createCell(20).setCellValue("State");
-        headerRow.createCell(21).setCellValue("Zipcode");
+        columns.add(ExportColumn.indexedText("Country", "Country ", ""));
+        columns.add(ExportColumn.indexedText("City", "City ", ""));
+        columns.add(ExportColumn.indexedText("State", "State ", ""));
+        columns.add(ExportColumn.indexedText("Zipcode", "Zipcode ", ""));
 
         for (int i = 0; i < 8; i++) {
-            headerRow.createCell(22 + i).setCellValue("Misc_" + (i + 1));
+            columns.add(ExportColumn.indexedText("Misc_" + (i + 1), "Misc ", "_" + (i + 1)));
         }
+        return new ExportSchema(columns);
     }
 
     /**
-     * Populates a row with the given data.
+     * Populates a row with the given data. Compiles the layout on every call;
+     * exports compile it once and reuse a {@link PoiRowWriter}.
      *
      * @param row      the row to populate
      * @param rowIndex the index of the row
      * @param utcNow   the current date and time in UTC
      */
     void populateRow(Row row, int rowIndex, LocalDateTime utcNow) {
-        row.createCell(0).setCellValue(rowIndex);
-        row.createCell(1).setCellValue("Name " + rowIndex);
-        row.createCell(2).setCellValue("Value " + rowIndex);
-
-        for (int j = 0; j < 10; j++) {
-            row.createCell(3 + j).setCellValue(utcNow.format(DateTimeFormatter.ISO_DATE));
-        }
-
-        row.createCell(13).setCellValue(POKEMON_NAMES.get((rowIndex - 1) % POKEMON_NAMES.size()));
-
-        for (int j = 0; j < 4; j++) {
-            row.createCell(14 + j).setCellValue("email" + rowIndex + "_" + (j + 1) + "@example.com");
-        }
-
-        row.createCell(18).setCellValue("Country " + rowIndex);
-        row.createCell(19).setCellValue("City " + rowIndex);
-        row.createCell(20).setCellValue("State " + rowIndex);
-        row.createCell(21).setCellValue("Zipcode " + rowIndex);
-
-        for (int j = 0; j < 8; j++) {
-            row.createCell(22 + j).setCellValue("Misc " + rowIndex + "_" + (j + 1));
-        }
+        new PoiRowWriter(SCHEMA.compile(utcNow.toLocalDate()), null).writeRow(row, rowIndex);
     }
 }
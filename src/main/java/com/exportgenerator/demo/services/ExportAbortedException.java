@@ -0,0 +1,34 @@
+package com.exportgenerator.demo.services;
+
+import java.util.Locale;
+
+/**
+ * Thrown from a progress checkpoint when an export is stopped before it
+ * completes.
+ */
+public class ExportAbortedException extends RuntimeException {
+
+    /**
+     * Why the export was stopped; also the {@code cause} tag of the
+     * {@code export.aborts} meter. {@code ABANDONED} means the thread waiting
+     * for the output gave up, for example a bundle whose client went away.
+     */
+    public enum Reason {
+        DISCONNECTED, TIMEOUT, CANCELLED, ABANDONED;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Reason reason;
+
+    public ExportAbortedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,233 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits exports against a global memory and disk budget.
+ * <p>
+ * Exports that do not fit wait in one FIFO queue per owner. Freed budget goes
+ * to the owners in round-robin order, so one user submitting many exports
+ * cannot starve the others. The next owner's export is never skipped for a
+ * smaller one behind it, so large exports are not starved either. An export
+ * larger than the whole budget is admitted on its own once nothing else runs.
+ */
+@Service
+public class ExportAdmissionServiceImpl implements ExportAdmissionService {
+
+    private final boolean enabled;
+    private final long memoryBudget;
+    private final long diskBudget;
+    private final Duration maxWait;
+    private final int maxQueued;
+    private final ExportMetrics exportMetrics;
+
+    /**
+     * Waiting exports per owner; the first key is the next owner to be served.
+     * Guarded by {@code this}, like the usage counters.
+     */
+    private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private long memoryInUse;
+    private long diskInUse;
+    private int running;
+    private int queued;
+
+    @Autowired
+    public ExportAdmissionServiceImpl(ExportMetrics exportMetrics,
+            @Value("${export.admission.enabled:true}") boolean enabled,
+            @Value("${export.admission.memory-budget:0}") long memoryBudget,
+            @Value("${export.admission.disk-budget:4294967296}") long diskBudget,
+            @Value("${export.admission.max-wait:PT30S}") Duration maxWait,
+            @Value("${export.admission.max-queued:64}") int maxQueued) {
+        this(enabled, memoryBudget > 0 ? memoryBudget : Runtime.getRuntime().maxMemory() / 2, diskBudget, maxWait,
+                maxQueued, exportMetrics);
+    }
+
+    ExportAdmissionServiceImpl(boolean enabled, long memoryBudget, long diskBudget, Duration maxWait, int maxQueued,
+            ExportMetrics exportMetrics) {
+        this.enabled = enabled;
+        this.memoryBudget = memoryBudget;
+        this.diskBudget = diskBudget;
+        this.maxWait = maxWait;
+        this.maxQueued = maxQueued;
+        this.exportMetrics = exportMetrics;
+        exportMetrics.admissionGauges(this, ExportAdmissionServiceImpl::queued, ExportAdmissionServiceImpl::running);
+    }
+
+    @Override
+    public Permit acquire(String owner, ExportCost cost) {
+        if (!enabled) {
+            return UNLIMITED.acquire(owner, cost);
+        }
+        ExportCost reserved = new ExportCost(Math.min(cost.memoryBytes(), memoryBudget),
+                Math.min(cost.diskBytes(), diskBudget));
+        long start = System.nanoTime();
+
+        synchronized (this) {
+            if (queues.isEmpty() && fits(reserved)) {
+                reserve(reserved);
+                return new BudgetPermit(reserved);
+            }
+            if (queued >= maxQueued || maxWait.isZero()) {
+                exportMetrics.admissionRejected("queue_full");
+                throw new RejectedExecutionException("Export queue is full");
+            }
+
+            Waiter waiter = new Waiter(reserved);
+            queues.computeIfAbsent(owner, key -> new ArrayDeque<>()).add(waiter);
+            queued++;
+            long deadline = start + maxWait.toNanos();
+            try {
+                while (!waiter.admitted) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        exportMetrics.admissionRejected("timeout");
+                        throw new RejectedExecutionException("No export capacity became free within " + maxWait);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!waiter.admitted) {
+                    throw new RejectedExecutionException("Interrupted while waiting for export capacity", e);
+                }
+            } finally {
+                if (!waiter.admitted) {
+                    withdraw(owner, waiter);
+                }
+            }
+        }
+        exportMetrics.admissionWaited(System.nanoTime() - start);
+        return new BudgetPermit(reserved);
+    }
+
+    synchronized int queued() {
+        return queued;
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    private boolean fits(ExportCost cost) {
+        return memoryInUse + cost.memoryBytes() <= memoryBudget && diskInUse + cost.diskBytes() <= diskBudget;
+    }
+
+    private void reserve(ExportCost cost) {
+        memoryInUse += cost.memoryBytes();
+        diskInUse += cost.diskBytes();
+        running++;
+    }
+
+    private synchronized void release(ExportCost cost) {
+        memoryInUse -= cost.memoryBytes();
+        diskInUse -= cost.diskBytes();
+        running--;
+        dispatch();
+    }
+
+    private synchronized void reduce(ExportCost from, ExportCost to) {
+        memoryInUse -= from.memoryBytes() - to.memoryBytes();
+        diskInUse -= from.diskBytes() - to.diskBytes();
+        dispatch();
+    }
+
+    /**
+     * Admits waiting exports in round-robin order of their owners until the
+     * next one does not fit.
+     */
+    private void dispatch() {
+        boolean admitted = false;
+        Iterator<Map.Entry<String, ArrayDeque<Waiter>>> owners = queues.entrySet().iterator();
+        while (owners.hasNext()) {
+            Map.Entry<String, ArrayDeque<Waiter>> next = owners.next();
+            Waiter waiter = next.getValue().peek();
+            if (!fits(waiter.cost)) {
+                break;
+            }
+            next.getValue().poll();
+            queued--;
+            reserve(waiter.cost);
+            waiter.admitted = true;
+            admitted = true;
+
+            // move the owner to the back of the rotation
+            owners.remove();
+            if (!next.getValue().isEmpty()) {
+                queues.put(next.getKey(), next.getValue());
+                owners = queues.entrySet().iterator();
+            }
+        }
+        if (admitted) {
+            notifyAll();
+        }
+    }
+
+    private void withdraw(String owner, Waiter waiter) {
+        ArrayDeque<Waiter> queue = queues.get(owner);
+        if (queue != null && queue.remove(waiter)) {
+            queued--;
+            if (queue.isEmpty()) {
+                queues.remove(owner);
+            }
+        }
+        // the withdrawn export may have been blocking smaller ones behind it
+        dispatch();
+    }
+
+    private static final class Waiter {
+
+        private final ExportCost cost;
+        private boolean admitted;
+
+        Waiter(ExportCost cost) {
+            this.cost = cost;
+        }
+    }
+
+    private final class BudgetPermit implements Permit {
+
+        // guarded by the enclosing service
+        private ExportCost cost;
+        private boolean closed;
+
+        BudgetPermit(ExportCost cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public void retain(ExportCost kept) {
+            synchronized (ExportAdmissionServiceImpl.this) {
+                if (closed) {
+                    return;
+                }
+                ExportCost reduced = new ExportCost(Math.min(kept.memoryBytes(), cost.memoryBytes()),
+                        Math.min(kept.diskBytes(), cost.diskBytes()));
+                reduce(cost, reduced);
+                cost = reduced;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (ExportAdmissionServiceImpl.this) {
+                if (!closed) {
+                    closed = true;
+                    release(cost);
+                }
+            }
+        }
+    }
+}
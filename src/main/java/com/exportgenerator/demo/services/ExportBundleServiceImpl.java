@@ -0,0 +1,413 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.services.io.SpoolFile;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Splits an export into sheets and workbooks and delivers it either as a
+ * single workbook or as a zip bundle of workbooks.
+ * <p>
+ * Bundled workbooks are generated concurrently into temporary files and
+ * streamed into the zip in order as soon as each one is ready. They are
+ * already compressed, so the entries are stored rather than deflated again.
+ * <p>
+ * In virtual-thread mode the export is generated on the {@link GenerationPool}
+ * into a spool file, and only the copy to the client runs on the request
+ * thread, following the file as it grows. Slow clients then hold a virtual
+ * thread and a file, not a platform thread in the middle of generation.
+ */
+@Service
+public class ExportBundleServiceImpl implements ExportBundleService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportBundleServiceImpl.class);
+
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+
+    /**
+     * Finished workbook waiting on disk to be copied into the zip, per row.
+     */
+    static final long WORKBOOK_BYTES_PER_ROW = 160;
+
+    /**
+     * Bytes of a spool file copied to the client at a time.
+     */
+    static final int SPOOL_CHUNK_BYTES = 64 * 1024;
+
+    private final ExcelExportService excelExportService;
+    private final ExportMetrics exportMetrics;
+    private final int rowsPerSheet;
+    private final int maxRowsPerWorkbook;
+    private final int parallelism;
+    private final int maxRows;
+    private final Path directory;
+    private ExportAdmissionService exportAdmissionService = ExportAdmissionService.UNLIMITED;
+
+    /**
+     * The generation pool, or {@code null} when requests run on platform threads.
+     */
+    private GenerationPool generationPool;
+
+    /**
+     * Longest time a download may take before generation is stopped; zero
+     * means no limit.
+     */
+    @Value("${export.timeout:0}")
+    private Duration timeout = Duration.ZERO;
+
+    @Autowired
+    public ExportBundleServiceImpl(ExcelExportService excelExportService, ExportMetrics exportMetrics,
+            @Value("${export.rows-per-sheet:20000}") int rowsPerSheet,
+            @Value("${export.sharding.max-rows-per-workbook:5000000}") int maxRowsPerWorkbook,
+            @Value("${export.sharding.parallelism:2}") int parallelism,
+            @Value("${export.max-rows:50000000}") int maxRows,
+            @Value("${export.sharding.directory:${java.io.tmpdir}/export-shards}") String directory) {
+        this(excelExportService, exportMetrics, rowsPerSheet, maxRowsPerWorkbook, parallelism, maxRows,
+                Path.of(directory));
+    }
+
+    ExportBundleServiceImpl(ExcelExportService excelExportService, ExportMetrics exportMetrics, int rowsPerSheet,
+            int maxRowsPerWorkbook, int parallelism, int maxRows, Path directory) {
+        if (rowsPerSheet < 1 || maxRowsPerWorkbook < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Sharding settings must be positive");
+        }
+        this.excelExportService = excelExportService;
+        this.exportMetrics = exportMetrics;
+        this.rowsPerSheet = Math.min(rowsPerSheet, ExcelExportServiceImpl.MAX_ROWS_PER_SHEET);
+        this.maxRowsPerWorkbook = maxRowsPerWorkbook;
+        this.parallelism = parallelism;
+        this.maxRows = maxRows;
+        this.directory = directory;
+    }
+
+    @Autowired
+    void setExportAdmissionService(ExportAdmissionService exportAdmissionService) {
+        this.exportAdmissionService = exportAdmissionService;
+    }
+
+    @Autowired(required = false)
+    void setGenerationPool(GenerationPool generationPool) {
+        this.generationPool = generationPool;
+    }
+
+    void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ExportPlan plan(ExportRequest request) {
+        if (request.totalRows() < 1 || request.totalRows() > maxRows) {
+            throw new IllegalArgumentException("rows must be between 1 and " + maxRows);
+        }
+        return ExportPlan.of(request.totalRows(), rowsPerSheet, maxRowsPerWorkbook, request.compression())
+                .select(request.selection());
+    }
+
+    /**
+     * Bundled workbooks run {@code export.sharding.parallelism} at a time, and
+     * every finished workbook may sit on disk until the ones before it have
+     * been copied into the zip.
+     */
+    @Override
+    public ExportCost estimateCost(ExportPlan plan) {
+        if (!plan.isBundle()) {
+            return excelExportService.estimateCost(plan.shards().get(0));
+        }
+        ExportCost largest = ExportCost.NONE;
+        for (ExportShard shard : plan.shards()) {
+            ExportCost cost = excelExportService.estimateCost(shard);
+            largest = new ExportCost(Math.max(largest.memoryBytes(), cost.memoryBytes()),
+                    Math.max(largest.diskBytes(), cost.diskBytes()));
+        }
+        int concurrent = Math.min(parallelism, plan.shards().size());
+        return new ExportCost(largest.memoryBytes() * concurrent,
+                largest.diskBytes() * concurrent + plan.totalRows() * WORKBOOK_BYTES_PER_ROW);
+    }
+
+    @Override
+    public String fileName(ExportPlan plan, LocalDateTime generatedAt) {
+        return ExcelExportServiceImpl.exportFileName(generatedAt, plan.isBundle() ? "zip" : "xlsx");
+    }
+
+    @Override
+    public void export(ExportRequest request, HttpServletResponse response) throws IOException {
+        ExportPlan plan = plan(request);
+        ExportCancellation cancellation = ExportCancellation.withTimeout(timeout);
+        if (generationPool != null) {
+            exportSpooled(request, plan, cancellation, response);
+            return;
+        }
+
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.acquire(request.owner(),
+                estimateCost(plan))) {
+            setDownloadHeaders(plan, response);
+            write(plan, response.getOutputStream(), cancellation.guard(ExportProgressListener.NONE));
+        }
+    }
+
+    /**
+     * Generates the export into a spool file on the generation pool while
+     * copying the file to the client as it grows. The admission permit keeps
+     * only the spool file's size once generation finishes, so slow downloads
+     * hold disk budget but no memory. If the client goes away, the failed
+     * write stops generation.
+     */
+    private void exportSpooled(ExportRequest request, ExportPlan plan, ExportCancellation cancellation,
+            HttpServletResponse response) throws IOException {
+        Files.createDirectories(directory);
+        SpoolFile spool = new SpoolFile(
+                Files.createTempFile(directory, "spool-", plan.isBundle() ? ".zip" : ".xlsx"), SPOOL_CHUNK_BYTES);
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.acquire(request.owner(),
+                estimateCost(plan).plus(new ExportCost(0, plan.totalRows() * WORKBOOK_BYTES_PER_ROW)))) {
+            Future<Void> generation = generationPool.submit(() -> {
+                try (OutputStream out = spool.openOutput()) {
+                    write(plan, out, cancellation.guard(ExportProgressListener.NONE));
+                }
+                permit.retain(new ExportCost(0, spool.size()));
+                return null;
+            });
+            try {
+                copySpool(spool, generation, plan, response);
+            } finally {
+                generation.cancel(true);
+                spool.abandon();
+            }
+        } finally {
+            deleteQuietly(spool.file());
+        }
+    }
+
+    /**
+     * Copies the spool file to the client as it grows. Headers are sent once
+     * the first chunk is ready, so an export that fails early still gets an
+     * error response, and one that finishes within the first chunk gets a
+     * {@code Content-Length}.
+     */
+    private void copySpool(SpoolFile spool, Future<Void> generation, ExportPlan plan, HttpServletResponse response)
+            throws IOException {
+        long written = spool.awaitWritten(0);
+        if (spool.isEnded()) {
+            GenerationPool.await(generation);
+        }
+        setDownloadHeaders(plan, response);
+        if (spool.isEnded()) {
+            response.setContentLengthLong(written);
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(spool.file(), StandardOpenOption.READ)) {
+            long position = 0;
+            while (true) {
+                while (position < written) {
+                    position += channel.transferTo(position, written - position, target);
+                }
+                if (spool.isEnded() && position == spool.size()) {
+                    break;
+                }
+                written = spool.awaitWritten(position);
+                if (spool.isEnded()) {
+                    // never send the tail of a workbook whose generation failed
+                    GenerationPool.await(generation);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void setDownloadHeaders(ExportPlan plan, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=" + fileName(plan, LocalDateTime.now()));
+        response.setContentType(plan.isBundle() ? ZIP_CONTENT_TYPE : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    @Override
+    public void write(ExportPlan plan, OutputStream out, ExportProgressListener listener) throws IOException {
+        ExportMetrics.Recording recording = exportMetrics.start(excelExportService.engine(),
+                plan.isBundle() ? "zip" : "xlsx");
+        try {
+            OutputStream counted = recording.count(out);
+            if (plan.isBundle()) {
+                writeBundle(plan, counted, listener);
+            } else {
+                excelExportService.exportTo(counted, plan.shards().get(0), listener);
+            }
+            recording.succeeded(plan.totalRows());
+        } catch (IOException | RuntimeException e) {
+            recording.failed(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String variant() {
+        return excelExportService.variant() + "/bundle/" + maxRowsPerWorkbook;
+    }
+
+    /**
+     * Generates the workbooks of a bundle on a pool of at most
+     * {@code export.sharding.parallelism} threads and copies each one into the
+     * zip as soon as it and all workbooks before it are done. If copying
+     * fails, the pool is interrupted and the workbooks still being generated
+     * stop at their next progress checkpoint.
+     */
+    private void writeBundle(ExportPlan plan, OutputStream out, ExportProgressListener listener) throws IOException {
+        Files.createDirectories(directory);
+        ExportProgressListener checkedListener = ExportCancellation.none().guard(listener);
+        List<ExportShard> shards = plan.shards();
+        ShardFiles shardFiles = new ShardFiles();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, shards.size()));
+        try {
+            List<Future<ShardFile>> futures = new ArrayList<>(shards.size());
+            for (ExportShard shard : shards) {
+                futures.add(executor.submit(() -> generate(shard, checkedListener, shardFiles)));
+            }
+
+            ZipOutputStream zip = new ZipOutputStream(out);
+            for (int i = 0; i < shards.size(); i++) {
+                ShardFile shardFile = await(futures.get(i));
+                ZipEntry entry = new ZipEntry(entryName(shards.get(i), shards.size()));
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(shardFile.size());
+                entry.setCompressedSize(shardFile.size());
+                entry.setCrc(shardFile.crc());
+                zip.putNextEntry(entry);
+                Files.copy(shardFile.file(), zip);
+                zip.closeEntry();
+                shardFiles.delete(shardFile.file());
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            executor.shutdownNow();
+            shardFiles.deleteAll();
+        }
+    }
+
+    private ShardFile generate(ExportShard shard, ExportProgressListener listener, ShardFiles shardFiles)
+            throws IOException {
+        ExportProgressListener shardListener = (sheetIndex, rows) ->
+                listener.rowsWritten(shard.firstSheetIndex() + sheetIndex, rows);
+        Path file = shardFiles.create(directory, shard);
+        try {
+            CRC32 crc = new CRC32();
+            // Without CREATE, a file already deleted by an abandoned bundle is not recreated
+            OutputStream fileOut = Files.newOutputStream(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try (CheckedOutputStream out = new CheckedOutputStream(new BufferedOutputStream(fileOut), crc)) {
+                excelExportService.exportTo(out, shard, shardListener);
+            }
+            return new ShardFile(file, Files.size(file), crc.getValue());
+        } catch (IOException | RuntimeException e) {
+            shardFiles.delete(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Zero-pads the workbook number so the entries sort in row order.
+     */
+    static String entryName(ExportShard shard, int shardCount) {
+        int width = String.valueOf(shardCount).length();
+        return String.format("data_%0" + width + "d.xlsx", shard.index() + 1);
+    }
+
+    private static ShardFile await(Future<ShardFile> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a workbook");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Workbook generation failed", e.getCause());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete workbook file {}", file, e);
+        }
+    }
+
+    private record ShardFile(Path file, long size, long crc) {
+    }
+
+    /**
+     * The temporary workbook files of one bundle. Once the bundle is done or
+     * abandoned no new files can be created, so workbooks still being
+     * generated fail instead of leaving files behind.
+     */
+    private static final class ShardFiles {
+
+        private final Set<Path> files = new HashSet<>();
+        private boolean closed;
+
+        synchronized Path create(Path directory, ExportShard shard) throws IOException {
+            if (closed) {
+                throw new InterruptedIOException("Bundle was abandoned");
+            }
+            Path file = Files.createTempFile(directory, "shard-" + shard.index() + "-", ".xlsx");
+            files.add(file);
+            return file;
+        }
+
+        synchronized void delete(Path file) {
+            files.remove(file);
+            deleteQuietly(file);
+        }
+
+        synchronized void deleteAll() {
+            closed = true;
+            files.forEach(ExportBundleServiceImpl::deleteQuietly);
+            files.clear();
+        }
+    }
+}
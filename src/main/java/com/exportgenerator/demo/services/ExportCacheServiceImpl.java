@@ -0,0 +1,289 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.CachedExport;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportCacheService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Disk cache of finished exports keyed on the engine variant, the export
+ * layout and the UTC date.
+ * <p>
+ * Files are named after the SHA-256 of their key and evicted least recently
+ * used first once the directory exceeds {@code export.cache.max-bytes}.
+ * Concurrent misses for the same key wait for a single generation.
+ */
+@Service
+@ConditionalOnProperty(name = "export.cache.enabled", havingValue = "true")
+public class ExportCacheServiceImpl implements ExportCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportCacheServiceImpl.class);
+
+    private static final String WORKBOOK_EXTENSION = ".xlsx";
+    private static final String BUNDLE_EXTENSION = ".zip";
+
+    private final ExportBundleService exportBundleService;
+    private final Path directory;
+    private final long maxBytes;
+    private final Clock clock;
+    private ExportAdmissionService exportAdmissionService = ExportAdmissionService.UNLIMITED;
+
+    /**
+     * Cached exports by hash in access order; guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, CachedExport> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<CachedExport>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportCacheServiceImpl(ExportBundleService exportBundleService,
+            @Value("${export.cache.directory:${java.io.tmpdir}/export-cache}") String directory,
+            @Value("${export.cache.max-bytes:1073741824}") long maxBytes) {
+        this(exportBundleService, Path.of(directory), maxBytes, Clock.systemUTC());
+    }
+
+    ExportCacheServiceImpl(ExportBundleService exportBundleService, Path directory, long maxBytes, Clock clock) {
+        this.exportBundleService = exportBundleService;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        loadExistingEntries();
+    }
+
+    @Autowired
+    void setExportAdmissionService(ExportAdmissionService exportAdmissionService) {
+        this.exportAdmissionService = exportAdmissionService;
+    }
+
+    @Override
+    public CachedExport getOrGenerate(ExportRequest request) throws IOException {
+        LocalDate today = LocalDate.now(clock);
+        ExportPlan plan = exportBundleService.plan(request).withExportDate(today);
+        String hash = hash(exportBundleService.variant() + "/" + plan.describe() + "/" + today);
+
+        CachedExport cached = lookup(hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<CachedExport> generation = new CompletableFuture<>();
+        CompletableFuture<CachedExport> existing = inFlight.putIfAbsent(hash, generation);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            cached = lookup(hash);
+            if (cached == null) {
+                cached = generate(hash, request.owner(), plan);
+            }
+            generation.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(hash, generation);
+        }
+    }
+
+    /**
+     * Returns the entry for a hash and marks it most recently used, dropping it
+     * if its file has disappeared.
+     *
+     * @param hash the key hash
+     * @return the entry, or {@code null} on a miss
+     */
+    private synchronized CachedExport lookup(String hash) {
+        CachedExport cached = entries.get(hash);
+        if (cached != null && !Files.exists(cached.file())) {
+            entries.remove(hash);
+            totalBytes -= cached.size();
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Generates a missing entry. Only this single generation is admitted;
+     * callers waiting on it do not hold any budget.
+     */
+    private CachedExport generate(String hash, String owner, ExportPlan plan) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(hash + (plan.isBundle() ? BUNDLE_EXTENSION : WORKBOOK_EXTENSION));
+        Path temp = Files.createTempFile(directory, hash, ".part");
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.acquire(owner,
+                exportBundleService.estimateCost(plan))) {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                exportBundleService.write(plan, out, ExportProgressListener.NONE);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        CachedExport cached = toEntry(hash, target);
+        store(cached);
+        return cached;
+    }
+
+    private synchronized void store(CachedExport cached) {
+        CachedExport previous = entries.put(cached.hash(), cached);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += cached.size();
+        evict(cached.hash());
+    }
+
+    /**
+     * Deletes least recently used files until the cache fits its budget. The
+     * newest entry is always kept, even if it alone exceeds the budget.
+     *
+     * @param keep the hash of the entry that must survive
+     */
+    private void evict(String keep) {
+        Iterator<CachedExport> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            CachedExport eldest = iterator.next();
+            if (eldest.hash().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.size();
+            try {
+                Files.deleteIfExists(eldest.file());
+            } catch (IOException e) {
+                log.warn("Failed to evict cached export {}", eldest.file(), e);
+            }
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Indexes files left by a previous run, oldest first, so they are evicted
+     * before anything generated by this one, and deletes the partial files of
+     * generations that run never finished.
+     */
+    private void loadExistingEntries() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        deleteStaleParts();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.{xlsx,zip}")) {
+            stream.forEach(files::add);
+            files.sort(Comparator.comparing(ExportCacheServiceImpl::lastModifiedMillis));
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                store(toEntry(name.substring(0, name.lastIndexOf('.')), file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index export cache " + directory, e);
+        }
+    }
+
+    private void deleteStaleParts() {
+        FileTime startedAt = FileTime.from(clock.instant());
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.part")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(startedAt) < 0 && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete stale export file {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep export cache {}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} stale export cache files from {}", deleted, directory);
+        }
+    }
+
+    private static CachedExport toEntry(String hash, Path file) throws IOException {
+        LocalDateTime generatedAt = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                ZoneId.systemDefault());
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return new CachedExport(hash, file, Files.size(file),
+                ExcelExportServiceImpl.exportFileName(generatedAt, extension));
+    }
+
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CachedExport await(CompletableFuture<CachedExport> generation) throws IOException {
+        try {
+            return generation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export generation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Export generation failed", e.getCause());
+        }
+    }
+
+    static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
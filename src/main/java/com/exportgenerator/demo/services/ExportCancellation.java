@@ -0,0 +1,93 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Conditions under which a running export should stop: an interrupted
+ * generating thread, an elapsed deadline or an explicit cancel.
+ * <p>
+ * Engines report progress every {@link ExcelExportServiceImpl#PROGRESS_INTERVAL}
+ * rows per sheet, so a {@link #guard guarded} listener stops an export within
+ * that many rows of each sheet being generated.
+ */
+public final class ExportCancellation {
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final BooleanSupplier cancelled;
+
+    private ExportCancellation(long deadlineNanos, boolean hasDeadline, BooleanSupplier cancelled) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Stops only when the generating thread is interrupted.
+     *
+     * @return the cancellation
+     */
+    public static ExportCancellation none() {
+        return new ExportCancellation(0, false, NEVER);
+    }
+
+    /**
+     * Also stops once the timeout has elapsed from now.
+     *
+     * @param timeout the timeout; zero or negative means none
+     * @return the cancellation
+     */
+    public static ExportCancellation withTimeout(Duration timeout) {
+        if (timeout.isZero() || timeout.isNegative()) {
+            return none();
+        }
+        return new ExportCancellation(System.nanoTime() + timeout.toNanos(), true, NEVER);
+    }
+
+    /**
+     * Also stops once the given condition holds.
+     *
+     * @param condition the explicit cancel flag
+     * @return the combined cancellation
+     */
+    public ExportCancellation orWhen(BooleanSupplier condition) {
+        BooleanSupplier previous = cancelled;
+        return new ExportCancellation(deadlineNanos, hasDeadline,
+                () -> previous.getAsBoolean() || condition.getAsBoolean());
+    }
+
+    /**
+     * @throws ExportAbortedException if the export should stop
+     */
+    public void check() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ExportAbortedException(ExportAbortedException.Reason.ABANDONED,
+                    "Export was abandoned by its consumer");
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new ExportAbortedException(ExportAbortedException.Reason.CANCELLED, "Export was cancelled");
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos > 0) {
+            throw new ExportAbortedException(ExportAbortedException.Reason.TIMEOUT, "Export timed out");
+        }
+    }
+
+    /**
+     * Wraps a listener so every progress report is also a cancellation
+     * checkpoint.
+     *
+     * @param listener the listener to notify
+     * @return the guarded listener
+     */
+    public ExportProgressListener guard(ExportProgressListener listener) {
+        return (sheetIndex, rowsWritten) -> {
+            check();
+            listener.rowsWritten(sheetIndex, rowsWritten);
+        };
+    }
+}
@@ -0,0 +1,235 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportJob;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportJobService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs exports asynchronously on a dedicated bounded pool and keeps the
+ * finished files on disk until their time-to-live expires.
+ */
+@Service
+public class ExportJobServiceImpl implements ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobServiceImpl.class);
+
+    private final ExportBundleService exportBundleService;
+    private final Path directory;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private ExportAdmissionService exportAdmissionService = ExportAdmissionService.UNLIMITED;
+
+    @Autowired
+    public ExportJobServiceImpl(ExportBundleService exportBundleService,
+            @Value("${export.jobs.threads:2}") int threads,
+            @Value("${export.jobs.queue-capacity:8}") int queueCapacity,
+            @Value("${export.jobs.ttl:PT1H}") Duration ttl,
+            @Value("${export.jobs.directory:${java.io.tmpdir}/export-jobs}") String directory) {
+        this(exportBundleService, threads, queueCapacity, ttl, Path.of(directory), Clock.systemUTC());
+    }
+
+    ExportJobServiceImpl(ExportBundleService exportBundleService, int threads, int queueCapacity, Duration ttl,
+            Path directory, Clock clock) {
+        this.exportBundleService = exportBundleService;
+        this.directory = directory;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("export-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(namedThreads("export-job-sweeper-"));
+
+        long sweepMillis = Math.max(1000L, Math.min(ttl.toMillis(), 60_000L));
+        sweeper.scheduleWithFixedDelay(this::expireFinishedJobs, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes job files left in the directory by earlier processes. Jobs only
+     * live in memory, so nothing can ever serve or expire those files.
+     */
+    @PostConstruct
+    public void start() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        FileTime startedAt = FileTime.from(clock.instant());
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.part")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(startedAt) < 0 && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete stale export file {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep export job directory {}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} stale export job files from {}", deleted, directory);
+        }
+    }
+
+    @Autowired
+    void setExportAdmissionService(ExportAdmissionService exportAdmissionService) {
+        this.exportAdmissionService = exportAdmissionService;
+    }
+
+    /**
+     * Queues a new export on the job pool.
+     *
+     * @param request the export parameters
+     * @return the queued job
+     * @throws RejectedExecutionException if the job queue is full
+     * @throws IllegalArgumentException if the row count is out of range
+     */
+    @Override
+    public ExportJob submit(ExportRequest request) {
+        ExportPlan plan = exportBundleService.plan(request);
+        String id = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create export job directory " + directory, e);
+        }
+
+        ExportJob job = new ExportJob(id, exportBundleService.fileName(plan, LocalDateTime.now()),
+                directory.resolve(id + ".part"), plan.sheetCount(), plan.totalRows(), clock.instant());
+
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job, request.owner(), plan));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        return job;
+    }
+
+    @Override
+    public Optional<ExportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Override
+    public Optional<ExportJob> cancel(String id) {
+        Optional<ExportJob> job = find(id);
+        job.ifPresent(ExportJob::cancel);
+        return job;
+    }
+
+    /**
+     * Waits for admission on the job thread, then generates the export for a
+     * job into its artifact file. A job that is not admitted fails; a job
+     * cancelled before or while it runs ends up cancelled.
+     *
+     * @param job   the job to run
+     * @param owner the subject the job was submitted by
+     * @param plan  the layout of the export
+     */
+    void run(ExportJob job, String owner, ExportPlan plan) {
+        if (job.isCancelRequested()) {
+            job.markCancelled(clock.instant());
+            return;
+        }
+        ExportCancellation cancellation = ExportCancellation.none().orWhen(job::isCancelRequested);
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.acquire(owner,
+                exportBundleService.estimateCost(plan));
+                OutputStream out = Files.newOutputStream(job.getFile())) {
+            cancellation.check();
+            job.markRunning();
+            exportBundleService.write(plan, out, cancellation.guard(job::updateRowsWritten));
+            job.markCompleted(clock.instant());
+        } catch (ExportAbortedException e) {
+            log.info("Export job {} stopped: {}", job.getId(), e.getMessage());
+            deleteQuietly(job.getFile());
+            job.markCancelled(clock.instant());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Export job {} failed", job.getId(), e);
+            deleteQuietly(job.getFile());
+            job.markFailed(clock.instant(), e.getMessage());
+        }
+    }
+
+    /**
+     * Removes finished jobs whose time-to-live has elapsed, together with their
+     * files.
+     */
+    void expireFinishedJobs() {
+        Instant cutoff = clock.instant().minus(ttl);
+        jobs.values().removeIf(job -> {
+            Instant completedAt = job.getCompletedAt();
+            if (completedAt == null || completedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.getFile());
+            return true;
+        });
+    }
+
+    int queuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete export file {}", file, e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.exportgenerator.demo.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of platform threads for CPU-heavy export generation.
+ * <p>
+ * Only created in virtual-thread mode ({@code spring.threads.virtual.enabled=true}
+ * on Java 21 or later). Requests then run on cheap virtual threads that may
+ * block on slow clients for as long as they like, while the number of exports
+ * being generated at once stays at {@code export.generation.threads}. Waiting
+ * tasks queue without limit; admission control already bounds how many
+ * exports reach the pool.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class GenerationPool {
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public GenerationPool(@Value("${export.generation.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-generation-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a task on the pool without waiting for it.
+     *
+     * @param task the generation task
+     * @param <T>  the result type
+     * @return the task's future
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Waits for a submitted task. If the waiting thread is interrupted, the
+     * task is interrupted too.
+     *
+     * @param future the task's future
+     * @param <T>    the result type
+     * @return the task's result
+     * @throws IOException if the task fails with one, or the wait is interrupted
+     */
+    public static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for export generation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Export generation failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
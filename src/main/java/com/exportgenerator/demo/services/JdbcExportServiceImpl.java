@@ -0,0 +1,113 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.rowsource.JdbcRowSource;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import com.exportgenerator.demo.services.serviceinterfaces.JdbcExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import jakarta.servlet.http.HttpServletResponse;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Exports the result of a configured query through the active Excel engine.
+ * Enabled by setting {@code export.jdbc.query}; the application must provide
+ * a {@link DataSource}.
+ * <p>
+ * The row count is only known once the cursor is exhausted, so admission
+ * control budgets each export as one full sheet. Like the synthetic exports,
+ * it stops at the next progress checkpoint once {@code export.timeout}
+ * elapses or its thread is interrupted.
+ */
+@Service
+@ConditionalOnProperty(name = "export.jdbc.query")
+public class JdbcExportServiceImpl implements JdbcExportService {
+
+    private final ExcelExportService excelExportService;
+    private final DataSource dataSource;
+    private final ExportMetrics exportMetrics;
+    private final String query;
+    private final int fetchSize;
+    private final int rowsPerSheet;
+    private ExportAdmissionService exportAdmissionService = ExportAdmissionService.UNLIMITED;
+
+    /**
+     * Longest an export may run before it stops at its next progress
+     * checkpoint; zero means no limit.
+     */
+    @Value("${export.timeout:0}")
+    private Duration timeout = Duration.ZERO;
+
+    public JdbcExportServiceImpl(ExcelExportService excelExportService, DataSource dataSource,
+            ExportMetrics exportMetrics,
+            @Value("${export.jdbc.query}") String query,
+            @Value("${export.jdbc.fetch-size:1000}") int fetchSize,
+            @Value("${export.jdbc.rows-per-sheet:1048575}") int rowsPerSheet) {
+        if (rowsPerSheet < 1) {
+            throw new IllegalArgumentException("export.jdbc.rows-per-sheet must be positive");
+        }
+        this.excelExportService = excelExportService;
+        this.dataSource = dataSource;
+        this.exportMetrics = exportMetrics;
+        this.query = query;
+        this.fetchSize = fetchSize;
+        this.rowsPerSheet = rowsPerSheet;
+    }
+
+    @Autowired
+    void setExportAdmissionService(ExportAdmissionService exportAdmissionService) {
+        this.exportAdmissionService = exportAdmissionService;
+    }
+
+    void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the estimated cost of one full sheet, which every export is
+     *         budgeted at
+     */
+    ExportCost estimateCost() {
+        return excelExportService.estimateCost(ExportPlan.of(rowsPerSheet, rowsPerSheet, rowsPerSheet).shards().get(0));
+    }
+
+    @Override
+    public void exportToExcel(String owner, HttpServletResponse response) throws IOException {
+        ExportCancellation cancellation = ExportCancellation.withTimeout(timeout);
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.acquire(owner, estimateCost())) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=" + ExcelExportServiceImpl.exportFileName());
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            export(response, cancellation.guard(ExportProgressListener.NONE));
+        }
+    }
+
+    private void export(HttpServletResponse response, ExportProgressListener listener) throws IOException {
+        ExportMetrics.Recording recording = exportMetrics.start(excelExportService.engine(), "xlsx");
+        try (Connection connection = dataSource.getConnection();
+                JdbcRowSource source = new JdbcRowSource(connection, query, fetchSize)) {
+            excelExportService.exportTo(recording.count(response.getOutputStream()), source, rowsPerSheet, listener);
+            recording.succeeded(source.getRowsRead());
+        } catch (SQLException e) {
+            IOException failure = new IOException("Failed to obtain a database connection", e);
+            recording.failed(failure);
+            throw failure;
+        } catch (IOException | RuntimeException e) {
+            recording.failed(e);
+            throw e;
+        }
+    }
+}
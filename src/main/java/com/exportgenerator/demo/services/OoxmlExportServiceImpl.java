@@ -0,0 +1,475 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.SheetSlice;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.ooxml.OoxmlRowWriter;
+import com.exportgenerator.demo.services.ooxml.OoxmlWriter;
+import com.exportgenerator.demo.services.ooxml.SharedStrings;
+import com.exportgenerator.demo.services.rowsource.ExportRowSource;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.exportgenerator.demo.services.ooxml.OoxmlWriter.ascii;
+import static com.exportgenerator.demo.services.ooxml.OoxmlWriter.escaped;
+
+/**
+ * Service implementation that writes the SpreadsheetML package directly into a
+ * {@link ZipArchiveOutputStream} on the response, without POI's Row/Cell object model.
+ * Selected with {@code export.engine=ooxml}; the sheet contents match
+ * {@link ExcelExportServiceImpl} cell for cell.
+ */
+@Service
+@ConditionalOnProperty(name = "export.engine", havingValue = "ooxml")
+public class OoxmlExportServiceImpl implements ExcelExportService {
+
+    /**
+     * Bumped whenever a change to this engine alters the bytes it produces, so
+     * cached exports from an older version are not served.
+     */
+    static final int ENGINE_VERSION = 2;
+
+    static final String ENGINE = "ooxml";
+
+    /**
+     * Deflater state, per-export constants and part headers.
+     */
+    static final long BASE_MEMORY_BYTES = 1024 * 1024;
+
+    private static final byte[] XML_DECLARATION = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+    private static final byte[] SHEET_START = ascii(
+            "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    private static final byte[] SHEET_END = ascii("</sheetData></worksheet>");
+
+    /**
+     * Index of the {@code yyyy-mm-dd} cell format in {@link #TYPED_STYLES}.
+     */
+    private static final int DATE_STYLE = 1;
+
+    private static final byte[] ROOT_RELS = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>");
+
+    private static final byte[] STYLES = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>"
+            + "</styleSheet>");
+
+    private static final byte[] TYPED_STYLES = ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy\\-mm\\-dd\"/></numFmts>"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+            + "</styleSheet>");
+
+    /**
+     * Size of the reusable byte buffer each export serializes through.
+     */
+    @Value("${export.ooxml.buffer-size:65536}")
+    private int bufferSize = 65536;
+
+    /**
+     * Cell encoding; {@code typed} writes numeric date cells and shares the
+     * PokemonName values through {@code xl/sharedStrings.xml}.
+     */
+    @Value("${export.cell-mode:inline}")
+    private CellMode cellMode = CellMode.INLINE;
+
+    /**
+     * Maximum number of distinct values kept in the shared-strings table.
+     */
+    @Value("${export.ooxml.shared-strings.max-cardinality:1024}")
+    private int sharedStringsMaxCardinality = 1024;
+
+    /**
+     * Compression of the package parts when the request does not choose one.
+     */
+    @Value("${export.compression.level:default}")
+    private ZipCompression compression = ZipCompression.DEFAULT;
+
+    private ExportMetrics exportMetrics = ExportMetrics.disabled();
+
+    private DeflatePool deflatePool = DeflatePool.disabled();
+
+    public OoxmlExportServiceImpl() {
+        // Empty constructor
+    }
+
+    @Autowired
+    void setExportMetrics(ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    @Autowired
+    void setDeflatePool(DeflatePool deflatePool) {
+        this.deflatePool = deflatePool;
+    }
+
+    void setCompression(ZipCompression compression) {
+        this.compression = compression;
+    }
+
+    void setCellMode(CellMode cellMode) {
+        this.cellMode = cellMode;
+    }
+
+    void setSharedStringsMaxCardinality(int sharedStringsMaxCardinality) {
+        this.sharedStringsMaxCardinality = sharedStringsMaxCardinality;
+    }
+
+    /**
+     * Describes the engine settings that, together with the export layout and
+     * the UTC date, determine the bytes of an export from this engine.
+     *
+     * @return the variant description
+     */
+    @Override
+    public String variant() {
+        return ENGINE + "/" + ENGINE_VERSION + "/" + cellMode + "/" + sharedStringsMaxCardinality + "/" + compression
+                + (deflatePool.isParallel() ? "/parallel" : "");
+    }
+
+    @Override
+    public String engine() {
+        return ENGINE;
+    }
+
+    /**
+     * Rows are written straight into the destination stream, so the cost is
+     * the write buffer, the deflater, parallel deflate buffers and the
+     * shared-strings table; nothing is spilled to disk.
+     */
+    @Override
+    public ExportCost estimateCost(ExportShard shard) {
+        return new ExportCost(BASE_MEMORY_BYTES + bufferSize + sharedStringsMaxCardinality * 256L
+                + deflatePool.estimateMemory(ExcelExportServiceImpl.largestSheetRows(shard)
+                        * ExcelExportServiceImpl.COMPRESSED_ROW_BYTES), 0);
+    }
+
+    /**
+     * Exports data to an Excel file and writes it to the HTTP response.
+     *
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void exportToExcel(HttpServletResponse response) throws IOException {
+        String fileName = ExcelExportServiceImpl.exportFileName();
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        writeExport(response.getOutputStream(), ExcelExportServiceImpl.TOTAL_ROWS / ExcelExportServiceImpl.SHEET_NAMES.length,
+                ExcelExportServiceImpl.SHEET_NAMES);
+    }
+
+    /**
+     * Writes the full export to the given stream, reporting progress as rows are
+     * written.
+     *
+     * @param out      the destination stream, left open
+     * @param listener the progress listener
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportProgressListener listener) throws IOException {
+        writeExport(out, ExcelExportServiceImpl.TOTAL_ROWS / ExcelExportServiceImpl.SHEET_NAMES.length,
+                ExcelExportServiceImpl.SHEET_NAMES, listener);
+    }
+
+    /**
+     * Writes one workbook holding the sheets of the given shard, with dates
+     * counted from the shard's export date when it has one.
+     *
+     * @param out      the destination stream, left open
+     * @param shard    the sheets to write
+     * @param listener the progress listener, called with workbook-local sheet indexes
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportShard shard, ExportProgressListener listener) throws IOException {
+        writeExport(out, shard.sheets(), shard.compression() != null ? shard.compression() : compression,
+                shard.exportDate() != null ? shard.exportDate() : LocalDate.now(ZoneOffset.UTC), listener);
+    }
+
+    void writeExport(OutputStream out, int rowsPerSheet, String[] sheetNames) throws IOException {
+        writeExport(out, rowsPerSheet, sheetNames, ExportProgressListener.NONE);
+    }
+
+    void writeExport(OutputStream out, int rowsPerSheet, String[] sheetNames, ExportProgressListener listener)
+            throws IOException {
+        writeExport(out, SheetSlice.uniform(rowsPerSheet, sheetNames), listener);
+    }
+
+    /**
+     * Writes the complete package to the given stream. Rows are generated
+     * while the parts are written, so the whole export is recorded as the
+     * {@code write} phase.
+     *
+     * @param out      the destination stream, left open
+     * @param sheets   the sheets to write
+     * @param listener the progress listener
+     * @throws IOException if an I/O error occurs
+     */
+    void writeExport(OutputStream out, List<SheetSlice> sheets, ExportProgressListener listener) throws IOException {
+        writeExport(out, sheets, compression, listener);
+    }
+
+    void writeExport(OutputStream out, List<SheetSlice> sheets, ZipCompression compression,
+            ExportProgressListener listener) throws IOException {
+        writeExport(out, sheets, compression, LocalDate.now(ZoneOffset.UTC), listener);
+    }
+
+    private void writeExport(OutputStream out, List<SheetSlice> sheets, ZipCompression compression,
+            LocalDate exportDate, ExportProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        String[] sheetNames = new String[sheets.size()];
+        for (int i = 0; i < sheetNames.length; i++) {
+            sheetNames[i] = sheets.get(i).name();
+        }
+        boolean typed = cellMode == CellMode.TYPED;
+        ZipArchiveOutputStream zip = deflatePool.newZip(out, compression);
+        OoxmlWriter writer = new OoxmlWriter(zip, bufferSize);
+
+        writePart(zip, writer, "[Content_Types].xml", contentTypes(sheetNames.length, typed));
+        writePart(zip, writer, "_rels/.rels", ROOT_RELS);
+        writePart(zip, writer, "xl/workbook.xml", workbook(sheetNames));
+        writePart(zip, writer, "xl/_rels/workbook.xml.rels", workbookRels(sheetNames.length, typed));
+        writePart(zip, writer, "xl/styles.xml", typed ? TYPED_STYLES : STYLES);
+
+        SharedStrings sharedStrings = typed ? new SharedStrings(sharedStringsMaxCardinality) : null;
+        OoxmlRowWriter rows = new OoxmlRowWriter(ExcelExportServiceImpl.SCHEMA.compile(exportDate),
+                sharedStrings, DATE_STYLE);
+
+        for (int sheetIndex = 0; sheetIndex < sheetNames.length; sheetIndex++) {
+            zip.putArchiveEntry(new ZipArchiveEntry("xl/worksheets/sheet" + (sheetIndex + 1) + ".xml"));
+            writeSheet(writer, sheetIndex, sheets.get(sheetIndex), rows, listener);
+            writer.flush();
+            zip.closeArchiveEntry();
+        }
+
+        if (typed) {
+            zip.putArchiveEntry(new ZipArchiveEntry("xl/sharedStrings.xml"));
+            sharedStrings.write(writer);
+            writer.flush();
+            zip.closeArchiveEntry();
+        }
+
+        zip.finish();
+        zip.flush();
+        exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_WRITE, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes a package with the rows pulled from the given source, starting a
+     * new sheet every {@code rowsPerSheet} rows. Numeric columns become number
+     * cells and everything else inline strings. The number of sheets is only
+     * known once the source is exhausted, so the workbook parts that list the
+     * sheets follow the worksheets in the zip.
+     *
+     * @param out          the destination stream, left open
+     * @param source       the row source; the caller closes it
+     * @param rowsPerSheet the maximum number of data rows per sheet
+     * @param listener     the progress listener
+     * @throws IOException if reading the source or writing fails
+     */
+    @Override
+    public void exportTo(OutputStream out, ExportRowSource source, int rowsPerSheet, ExportProgressListener listener)
+            throws IOException {
+        long start = System.nanoTime();
+        ZipArchiveOutputStream zip = deflatePool.newZip(out, compression);
+        OoxmlWriter writer = new OoxmlWriter(zip, bufferSize);
+        int rowsInSheet = Math.min(rowsPerSheet, ExcelExportServiceImpl.MAX_ROWS_PER_SHEET);
+
+        String[] columnNames = source.columnNames();
+        byte[][] columnReferences = new byte[columnNames.length][];
+        for (int column = 0; column < columnNames.length; column++) {
+            columnReferences[column] = OoxmlWriter.columnReference(column);
+        }
+
+        int sheetCount = 0;
+        boolean more = source.next();
+        do {
+            sheetCount++;
+            zip.putArchiveEntry(new ZipArchiveEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+            more = writeSourceSheet(writer, sheetCount - 1, source, more, columnNames, columnReferences, rowsInSheet,
+                    listener);
+            writer.flush();
+            zip.closeArchiveEntry();
+        } while (more);
+
+        String[] sheetNames = new String[sheetCount];
+        for (int sheetIndex = 0; sheetIndex < sheetCount; sheetIndex++) {
+            sheetNames[sheetIndex] = ExportPlan.sheetName(sheetIndex);
+        }
+        writePart(zip, writer, "[Content_Types].xml", contentTypes(sheetCount, false));
+        writePart(zip, writer, "_rels/.rels", ROOT_RELS);
+        writePart(zip, writer, "xl/workbook.xml", workbook(sheetNames));
+        writePart(zip, writer, "xl/_rels/workbook.xml.rels", workbookRels(sheetCount, false));
+        writePart(zip, writer, "xl/styles.xml", STYLES);
+
+        zip.finish();
+        zip.flush();
+        exportMetrics.recordPhase(ENGINE, "xlsx", ExportMetrics.PHASE_WRITE, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes one worksheet part of a row-source export.
+     *
+     * @param hasRow {@code true} if the source is positioned on a row
+     * @return {@code true} if the source still has a row for the next sheet
+     */
+    private boolean writeSourceSheet(OoxmlWriter writer, int sheetIndex, ExportRowSource source, boolean hasRow,
+            String[] columnNames, byte[][] columnReferences, int rowsInSheet, ExportProgressListener listener)
+            throws IOException {
+        writer.write(XML_DECLARATION);
+        writer.write(SHEET_START);
+
+        writer.startRow(1);
+        for (int column = 0; column < columnNames.length; column++) {
+            writer.inlineString(columnReferences[column], 1, escaped(columnNames[column]));
+        }
+        writer.endRow();
+
+        int rowNumber = 1;
+        boolean more = hasRow;
+        while (more && rowNumber <= rowsInSheet) {
+            rowNumber++;
+            writer.startRow(rowNumber);
+            for (int column = 0; column < columnNames.length; column++) {
+                if (source.isNull(column)) {
+                    continue;
+                }
+                if (source.isNumeric(column)) {
+                    writer.number(columnReferences[column], rowNumber, source.getLong(column));
+                } else {
+                    writer.startInlineString(columnReferences[column], rowNumber);
+                    writer.writeEscaped(source.getText(column));
+                    writer.endInlineString();
+                }
+            }
+            writer.endRow();
+            if ((rowNumber - 1) % ExcelExportServiceImpl.PROGRESS_INTERVAL == 0) {
+                listener.rowsWritten(sheetIndex, rowNumber - 1);
+            }
+            more = source.next();
+        }
+        listener.rowsWritten(sheetIndex, rowNumber - 1);
+
+        writer.write(SHEET_END);
+        return more;
+    }
+
+    /**
+     * Writes the header row and data rows of a single worksheet part.
+     *
+     * @param writer     the writer positioned at the start of the part
+     * @param sheetIndex the position of the sheet in the workbook
+     * @param slice      the rows the sheet holds
+     * @param rows       the row writer compiled for this export
+     * @param listener   the progress listener
+     * @throws IOException if an I/O error occurs
+     */
+    void writeSheet(OoxmlWriter writer, int sheetIndex, SheetSlice slice, OoxmlRowWriter rows,
+            ExportProgressListener listener) throws IOException {
+        writer.write(XML_DECLARATION);
+        writer.write(SHEET_START);
+
+        rows.writeHeader(writer);
+
+        int rowCount = slice.rowCount();
+        for (int i = 1; i <= rowCount; i++) {
+            rows.writeRow(writer, i + 1, slice.firstRowIndex() + i - 1);
+            if (i % ExcelExportServiceImpl.PROGRESS_INTERVAL == 0) {
+                listener.rowsWritten(sheetIndex, i);
+            }
+        }
+        listener.rowsWritten(sheetIndex, rowCount);
+
+        writer.write(SHEET_END);
+    }
+
+    private static void writePart(ZipArchiveOutputStream zip, OoxmlWriter writer, String name, byte[] content)
+            throws IOException {
+        zip.putArchiveEntry(new ZipArchiveEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeArchiveEntry();
+    }
+
+    private static byte[] contentTypes(int sheetCount, boolean sharedStrings) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        if (sharedStrings) {
+            xml.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        return xml.append("</Types>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] workbook(String[] sheetNames) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"")
+                .append(" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 0; i < sheetNames.length; i++) {
+            xml.append("<sheet name=\"").append(new String(escaped(sheetNames[i]), StandardCharsets.UTF_8))
+                    .append("\" sheetId=\"").append(i + 1)
+                    .append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] workbookRels(int sheetCount, boolean sharedStrings) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetCount; i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\"")
+                    .append(" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetCount + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\"")
+                .append(" Target=\"styles.xml\"/>");
+        if (sharedStrings) {
+            xml.append("<Relationship Id=\"rId").append(sheetCount + 2)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings\"")
+                    .append(" Target=\"sharedStrings.xml\"/>");
+        }
+        return xml.append("</Relationships>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,320 @@
+package com.exportgenerator.demo.services.arrow;
+
+import com.exportgenerator.demo.services.schema.ColumnType;
+import com.exportgenerator.demo.services.schema.ExportColumn;
+import com.exportgenerator.demo.services.schema.RowPlan;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the rows of a {@link RowPlan} as an Apache Arrow IPC stream.
+ * <p>
+ * The stream is a schema message, one record batch per call to
+ * {@link #writeBatch(int, int)} and an end-of-stream marker, in the
+ * little-endian V5 format. Number columns become 32-bit signed integers, date
+ * columns become {@code Date(DAY)} and text columns become {@code Utf8}; no
+ * column has nulls, so validity bitmaps are left out. Each batch is built
+ * column by column into buffers reused across batches, so memory is bounded by
+ * the batch size, and written without compression so readers can use the
+ * buffers in place.
+ * <p>
+ * The message headers are encoded by {@link FlatBufferBuilder}, so no Arrow
+ * library is needed. A writer is used by one export at a time and never closes
+ * the underlying stream.
+ */
+public final class ArrowStreamWriter {
+
+    public static final String CONTENT_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_DATE = 8;
+    private static final short DATE_UNIT_DAY = 0;
+    private static final short LITTLE_ENDIAN = 0;
+    private static final byte[] PADDING = new byte[8];
+
+    private final OutputStream out;
+    private final RowPlan plan;
+    private final ColumnType[] types;
+    private final int epochDay;
+    private final byte[][] prefixes;
+    private final byte[][] suffixes;
+    private final byte[][][] cycleValues;
+    private final int[] maxWidths;
+    private final ArrowBuffer[] offsets;
+    private final ArrowBuffer[] data;
+    private final FlatBufferBuilder builder = new FlatBufferBuilder(4096);
+    private final byte[] scratch = new byte[8];
+
+    /**
+     * @param out  the destination stream
+     * @param plan the compiled schema
+     */
+    public ArrowStreamWriter(OutputStream out, RowPlan plan) {
+        this.out = out;
+        this.plan = plan;
+        this.epochDay = (int) plan.date().toEpochDay();
+
+        int count = plan.columnCount();
+        this.types = new ColumnType[count];
+        this.prefixes = new byte[count][];
+        this.suffixes = new byte[count][];
+        this.cycleValues = new byte[count][][];
+        this.maxWidths = new int[count];
+        this.offsets = new ArrowBuffer[count];
+        this.data = new ArrowBuffer[count];
+        for (int column = 0; column < count; column++) {
+            types[column] = plan.schema().columns().get(column).type();
+            prefixes[column] = utf8(plan.prefix(column));
+            suffixes[column] = utf8(plan.suffix(column));
+            String[] values = plan.cycleValues(column);
+            cycleValues[column] = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                cycleValues[column][i] = utf8(values[i]);
+                maxWidths[column] = Math.max(maxWidths[column], cycleValues[column][i].length);
+            }
+            if (plan.generator(column) == ExportColumn.Generator.INDEXED_TEXT) {
+                maxWidths[column] = prefixes[column].length + 11 + suffixes[column].length;
+            }
+            offsets[column] = types[column] == ColumnType.TEXT ? new ArrowBuffer() : null;
+            data[column] = new ArrowBuffer();
+        }
+    }
+
+    public void writeSchema() throws IOException {
+        builder.reset();
+        String[] names = plan.columnNames();
+        int[] fields = new int[names.length];
+        int noChildren = builder.createOffsetVector(new int[0]);
+        for (int column = 0; column < names.length; column++) {
+            int name = builder.createString(names[column]);
+            int type = typeTable(types[column]);
+            builder.startTable(7);
+            builder.addOffset(0, name);
+            builder.addBoolean(1, false);
+            builder.addByte(2, typeId(types[column]));
+            builder.addOffset(3, type);
+            builder.addOffset(5, noChildren);
+            fields[column] = builder.endTable();
+        }
+        int fieldVector = builder.createOffsetVector(fields);
+        builder.startTable(4);
+        builder.addOffset(1, fieldVector);
+        builder.addShort(0, LITTLE_ENDIAN);
+        int schema = builder.endTable();
+        writeMessage(HEADER_SCHEMA, schema, 0);
+    }
+
+    /**
+     * Writes one record batch.
+     *
+     * @param firstRowIndex the index of the batch's first row
+     * @param rowCount      the number of rows in the batch
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeBatch(int firstRowIndex, int rowCount) throws IOException {
+        int columnCount = types.length;
+        int bufferCount = 0;
+        for (int column = 0; column < columnCount; column++) {
+            fill(column, firstRowIndex, rowCount);
+            bufferCount += types[column] == ColumnType.TEXT ? 3 : 2;
+        }
+
+        long[] nodes = new long[2 * columnCount];
+        long[] buffers = new long[2 * bufferCount];
+        long bodyLength = 0;
+        int buffer = 0;
+        for (int column = 0; column < columnCount; column++) {
+            nodes[2 * column] = rowCount;
+            buffers[2 * buffer++] = bodyLength;
+            if (offsets[column] != null) {
+                buffers[2 * buffer] = bodyLength;
+                buffers[2 * buffer + 1] = offsets[column].length;
+                bodyLength += padded(offsets[column].length);
+                buffer++;
+            }
+            buffers[2 * buffer] = bodyLength;
+            buffers[2 * buffer + 1] = data[column].length;
+            bodyLength += padded(data[column].length);
+            buffer++;
+        }
+
+        builder.reset();
+        int nodeVector = builder.createLongPairVector(nodes, columnCount);
+        int bufferVector = builder.createLongPairVector(buffers, bufferCount);
+        builder.startTable(3);
+        builder.addLong(0, rowCount);
+        builder.addOffset(1, nodeVector);
+        builder.addOffset(2, bufferVector);
+        int batch = builder.endTable();
+        writeMessage(HEADER_RECORD_BATCH, batch, bodyLength);
+
+        for (int column = 0; column < columnCount; column++) {
+            if (offsets[column] != null) {
+                writePadded(offsets[column]);
+            }
+            writePadded(data[column]);
+        }
+    }
+
+    public void writeEndOfStream() throws IOException {
+        writeInt(CONTINUATION);
+        writeInt(0);
+    }
+
+    private void fill(int column, int firstRowIndex, int rowCount) {
+        ArrowBuffer values = data[column];
+        values.length = 0;
+        switch (types[column]) {
+            case NUMBER -> {
+                values.ensure(4 * rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    values.putInt(firstRowIndex + i);
+                }
+            }
+            case DATE -> {
+                values.ensure(4 * rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    values.putInt(epochDay);
+                }
+            }
+            case TEXT -> {
+                ArrowBuffer ends = offsets[column];
+                ends.length = 0;
+                ends.ensure(4 * (rowCount + 1));
+                ends.putInt(0);
+                values.ensure(maxWidths[column] * rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    int rowIndex = firstRowIndex + i;
+                    switch (plan.generator(column)) {
+                        case CYCLE -> values.put(cycleValues[column][plan.cycleIndex(column, rowIndex)]);
+                        default -> {
+                            values.put(prefixes[column]);
+                            values.putDecimal(rowIndex);
+                            values.put(suffixes[column]);
+                        }
+                    }
+                    ends.putInt(values.length);
+                }
+            }
+        }
+    }
+
+    private int typeTable(ColumnType type) {
+        switch (type) {
+            case NUMBER -> {
+                builder.startTable(2);
+                builder.addInt(0, 32);
+                builder.addBoolean(1, true);
+            }
+            case DATE -> {
+                builder.startTable(1);
+                builder.addShort(0, DATE_UNIT_DAY);
+            }
+            case TEXT -> builder.startTable(0);
+        }
+        return builder.endTable();
+    }
+
+    private static byte typeId(ColumnType type) {
+        return switch (type) {
+            case NUMBER -> TYPE_INT;
+            case DATE -> TYPE_DATE;
+            case TEXT -> TYPE_UTF8;
+        };
+    }
+
+    /**
+     * Writes an encapsulated message: the continuation marker, the padded
+     * header length and the {@code Message} header padded to eight bytes. The
+     * caller writes the body that follows.
+     */
+    private void writeMessage(byte headerType, int header, long bodyLength) throws IOException {
+        builder.startTable(4);
+        builder.addLong(3, bodyLength);
+        builder.addOffset(2, header);
+        builder.addShort(0, METADATA_V5);
+        builder.addByte(1, headerType);
+        byte[] metadata = builder.finish(builder.endTable());
+
+        int length = padded(metadata.length);
+        writeInt(CONTINUATION);
+        writeInt(length);
+        out.write(metadata);
+        out.write(PADDING, 0, length - metadata.length);
+    }
+
+    private void writePadded(ArrowBuffer buffer) throws IOException {
+        out.write(buffer.bytes, 0, buffer.length);
+        out.write(PADDING, 0, padded(buffer.length) - buffer.length);
+    }
+
+    private void writeInt(int value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 4);
+    }
+
+    private static int padded(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A growable little-endian byte buffer, reused from batch to batch.
+     */
+    private static final class ArrowBuffer {
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+
+        void ensure(int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[length] = (byte) value;
+            bytes[length + 1] = (byte) (value >>> 8);
+            bytes[length + 2] = (byte) (value >>> 16);
+            bytes[length + 3] = (byte) (value >>> 24);
+            length += 4;
+        }
+
+        void put(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        void putDecimal(int value) {
+            ensure(11);
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (int rest = value / 10; rest != 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+    }
+}
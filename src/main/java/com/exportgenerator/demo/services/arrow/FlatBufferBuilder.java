@@ -0,0 +1,215 @@
+package com.exportgenerator.demo.services.arrow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal FlatBuffers encoder for the Arrow IPC message headers.
+ * <p>
+ * Like the reference builder, it fills its buffer from the back: children are
+ * written before the tables that reference them, and offsets are counted from
+ * the end of the buffer until {@link #finish(int)} copies the message out.
+ * Only what Arrow metadata needs is supported: tables of scalars and offsets,
+ * strings, vectors of offsets and vectors of two-long structs. Every field is
+ * written explicitly, so readers never depend on schema defaults.
+ */
+final class FlatBufferBuilder {
+
+    private byte[] buffer;
+    private int space;
+    private int minAlign = 1;
+    private int[] vtable = new int[0];
+    private int objectStart;
+    private int vectorLength;
+
+    FlatBufferBuilder(int initialSize) {
+        this.buffer = new byte[initialSize];
+        this.space = initialSize;
+    }
+
+    /**
+     * Discards everything written so the builder can encode the next message.
+     */
+    void reset() {
+        space = buffer.length;
+        minAlign = 1;
+    }
+
+    /**
+     * @return the position of the last written byte, counted from the end
+     */
+    int offset() {
+        return buffer.length - space;
+    }
+
+    void startTable(int fieldCount) {
+        vtable = new int[fieldCount];
+        objectStart = offset();
+    }
+
+    void addByte(int slot, int value) {
+        prep(1, 0);
+        buffer[--space] = (byte) value;
+        vtable[slot] = offset();
+    }
+
+    void addBoolean(int slot, boolean value) {
+        addByte(slot, value ? 1 : 0);
+    }
+
+    void addShort(int slot, int value) {
+        prep(2, 0);
+        putShort(value);
+        vtable[slot] = offset();
+    }
+
+    void addInt(int slot, int value) {
+        prep(4, 0);
+        putInt(value);
+        vtable[slot] = offset();
+    }
+
+    void addLong(int slot, long value) {
+        prep(8, 0);
+        putLong(value);
+        vtable[slot] = offset();
+    }
+
+    void addOffset(int slot, int target) {
+        putOffset(target);
+        vtable[slot] = offset();
+    }
+
+    /**
+     * Writes the table's vtable and the signed offset that links the two.
+     *
+     * @return the table's offset
+     */
+    int endTable() {
+        prep(4, 0);
+        putInt(0);
+        int objectOffset = offset();
+        int fieldCount = vtable.length;
+        while (fieldCount > 0 && vtable[fieldCount - 1] == 0) {
+            fieldCount--;
+        }
+        ensure((fieldCount + 2) * 2);
+        for (int slot = fieldCount - 1; slot >= 0; slot--) {
+            putShort(vtable[slot] != 0 ? objectOffset - vtable[slot] : 0);
+        }
+        putShort(objectOffset - objectStart);
+        putShort((fieldCount + 2) * 2);
+        writeIntAt(buffer.length - objectOffset, offset() - objectOffset);
+        return objectOffset;
+    }
+
+    int createString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        prep(1, 0);
+        buffer[--space] = 0;
+        startVector(1, bytes.length, 1);
+        space -= bytes.length;
+        System.arraycopy(bytes, 0, buffer, space, bytes.length);
+        return endVector();
+    }
+
+    int createOffsetVector(int[] targets) {
+        startVector(4, targets.length, 4);
+        for (int i = targets.length - 1; i >= 0; i--) {
+            putOffset(targets[i]);
+        }
+        return endVector();
+    }
+
+    /**
+     * Writes a vector of structs made of two longs, such as Arrow's
+     * {@code FieldNode} and {@code Buffer}.
+     *
+     * @param values the struct fields, two per struct in declaration order
+     * @param count  the number of structs
+     * @return the vector's offset
+     */
+    int createLongPairVector(long[] values, int count) {
+        startVector(16, count, 8);
+        for (int i = count - 1; i >= 0; i--) {
+            putLong(values[2 * i + 1]);
+            putLong(values[2 * i]);
+        }
+        return endVector();
+    }
+
+    /**
+     * Writes the root offset and returns the finished buffer, whose length is
+     * a multiple of its largest alignment.
+     *
+     * @param root the root table
+     * @return the encoded bytes
+     */
+    byte[] finish(int root) {
+        prep(minAlign, 4);
+        putOffset(root);
+        return Arrays.copyOfRange(buffer, space, buffer.length);
+    }
+
+    private void startVector(int elementSize, int count, int alignment) {
+        vectorLength = count;
+        prep(4, elementSize * count);
+        prep(alignment, elementSize * count);
+    }
+
+    private int endVector() {
+        putInt(vectorLength);
+        return offset();
+    }
+
+    private void putOffset(int target) {
+        prep(4, 0);
+        putInt(offset() - target + 4);
+    }
+
+    /**
+     * Pads so that {@code size} bytes written after {@code additionalBytes}
+     * more bytes are aligned to {@code size}, and makes room for all of them.
+     */
+    private void prep(int size, int additionalBytes) {
+        minAlign = Math.max(minAlign, size);
+        int padding = -(offset() + additionalBytes) & (size - 1);
+        ensure(padding + size + additionalBytes);
+        for (int i = 0; i < padding; i++) {
+            buffer[--space] = 0;
+        }
+    }
+
+    private void ensure(int bytes) {
+        while (space < bytes) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, buffer.length, buffer.length);
+            space += buffer.length;
+            buffer = larger;
+        }
+    }
+
+    private void putShort(int value) {
+        space -= 2;
+        buffer[space] = (byte) value;
+        buffer[space + 1] = (byte) (value >>> 8);
+    }
+
+    private void putInt(int value) {
+        space -= 4;
+        writeIntAt(space, value);
+    }
+
+    private void putLong(long value) {
+        space -= 8;
+        for (int i = 0; i < 8; i++) {
+            buffer[space + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void writeIntAt(int index, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[index + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
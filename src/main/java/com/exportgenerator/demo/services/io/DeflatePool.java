@@ -0,0 +1,105 @@
+package com.exportgenerator.demo.services.io;
+
+import com.exportgenerator.demo.model.ZipCompression;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens the zip streams that workbook packages are written to, deflating on
+ * a shared pool of {@code export.compression.threads} threads when that is
+ * above 1.
+ * <p>
+ * The pool is shared by all exports, so parallel deflate spreads the largest
+ * cost of writing a package over idle cores without letting concurrent
+ * exports multiply the thread count. Stored parts are never worth a round
+ * trip through the pool.
+ */
+@Component
+public class DeflatePool {
+
+    /**
+     * Chunks handed to the pool per thread before a writer waits; enough to
+     * keep every thread busy while the writer fills the next chunk.
+     */
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    @Autowired
+    public DeflatePool(@Value("${export.compression.threads:0}") int threads) {
+        this.threads = threads;
+        if (threads > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "export-deflate-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * A pool without threads, for services created outside Spring.
+     *
+     * @return the pool
+     */
+    public static DeflatePool disabled() {
+        return new DeflatePool(0);
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Opens a zip stream at the given compression level.
+     *
+     * @param out         the destination stream
+     * @param compression the compression level
+     * @return the zip stream; finishing it leaves {@code out} open
+     */
+    public ZipArchiveOutputStream newZip(OutputStream out, ZipCompression compression) {
+        ZipArchiveOutputStream zip = isParallel() && compression != ZipCompression.STORED
+                ? new ParallelDeflateZipOutputStream(out, executor, threads * CHUNKS_IN_FLIGHT_PER_THREAD)
+                : new ZipArchiveOutputStream(out);
+        zip.setLevel(compression.level());
+        return zip;
+    }
+
+    /**
+     * Memory parallel deflate holds per export on top of a plain zip stream:
+     * the chunks in flight and the compressed copy of the largest part.
+     *
+     * @param largestCompressedPartBytes estimated compressed size of the
+     *                                   largest part
+     * @return the extra bytes, 0 when deflate is not parallel
+     */
+    public long estimateMemory(long largestCompressedPartBytes) {
+        if (!isParallel()) {
+            return 0;
+        }
+        return 2L * threads * CHUNKS_IN_FLIGHT_PER_THREAD * ParallelDeflateZipOutputStream.CHUNK_SIZE
+                + largestCompressedPartBytes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
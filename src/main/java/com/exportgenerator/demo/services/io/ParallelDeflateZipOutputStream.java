@@ -0,0 +1,231 @@
+package com.exportgenerator.demo.services.io;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Zip stream that deflates each entry in independent chunks on a thread pool,
+ * the way pigz does.
+ * <p>
+ * Entry data is cut into {@value #CHUNK_SIZE}-byte chunks. Each chunk is
+ * deflated on its own, primed with the last 32 KB of the chunk before it so
+ * the ratio stays close to a single-threaded deflate, and ends with a sync
+ * flush so the compressed chunks concatenate into one valid deflate stream.
+ * The CRC is computed on the calling thread as data arrives. Because the
+ * local header needs the CRC and sizes, compressed chunks are kept in memory
+ * until the entry is closed; at most {@code maxInFlight} chunks are being
+ * deflated at any time.
+ */
+public class ParallelDeflateZipOutputStream extends ZipArchiveOutputStream {
+
+    static final int CHUNK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private ZipArchiveEntry entry;
+    private final CRC32 crc = new CRC32();
+    private long size;
+    private byte[] chunk;
+    private int chunkLength;
+    private byte[] previousChunk;
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private final List<byte[]> compressed = new ArrayList<>();
+    private long compressedSize;
+
+    /**
+     * @param out         the destination stream
+     * @param executor    the pool that deflates chunks
+     * @param maxInFlight the number of chunks handed to the pool before the
+     *                    writer waits for the oldest one
+     */
+    public ParallelDeflateZipOutputStream(OutputStream out, ExecutorService executor, int maxInFlight) {
+        super(out);
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @Override
+    public void setLevel(int level) {
+        super.setLevel(level);
+        this.level = level;
+    }
+
+    @Override
+    public void putArchiveEntry(ArchiveEntry archiveEntry) throws IOException {
+        ZipArchiveEntry zipEntry = (ZipArchiveEntry) archiveEntry;
+        if (zipEntry.getMethod() == STORED) {
+            super.putArchiveEntry(zipEntry);
+            return;
+        }
+        if (entry != null) {
+            closeArchiveEntry();
+        }
+        entry = zipEntry;
+        crc.reset();
+        size = 0;
+        chunk = new byte[CHUNK_SIZE];
+        chunkLength = 0;
+        previousChunk = null;
+        compressed.clear();
+        compressedSize = 0;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (entry == null) {
+            super.write(b, off, len);
+            return;
+        }
+        crc.update(b, off, len);
+        size += len;
+        while (len > 0) {
+            int n = Math.min(len, CHUNK_SIZE - chunkLength);
+            System.arraycopy(b, off, chunk, chunkLength, n);
+            chunkLength += n;
+            off += n;
+            len -= n;
+            if (chunkLength == CHUNK_SIZE) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Deflates the last chunk, then writes the entry with its header, the
+     * concatenated chunks and its central directory record.
+     */
+    @Override
+    public void closeArchiveEntry() throws IOException {
+        if (entry == null) {
+            super.closeArchiveEntry();
+            return;
+        }
+        submit(true);
+        while (!inFlight.isEmpty()) {
+            collect(inFlight.poll());
+        }
+
+        ZipArchiveEntry finished = entry;
+        entry = null;
+        finished.setMethod(DEFLATED);
+        finished.setCrc(crc.getValue());
+        finished.setSize(size);
+        finished.setCompressedSize(compressedSize);
+        List<InputStream> parts = new ArrayList<>(compressed.size());
+        for (byte[] part : compressed) {
+            parts.add(new ByteArrayInputStream(part));
+        }
+        compressed.clear();
+        addRawArchiveEntry(finished, new SequenceInputStream(Collections.enumeration(parts)));
+    }
+
+    /**
+     * Drops an entry that was never closed because writing it failed, so the
+     * original failure is not hidden by an "unclosed entries" error.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (entry != null) {
+            discard();
+        }
+        super.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            discard();
+        }
+    }
+
+    private void submit(boolean last) throws IOException {
+        byte[] input = chunk;
+        int inputLength = chunkLength;
+        byte[] dictionary = previousChunk;
+        inFlight.add(executor.submit(() -> deflate(input, inputLength, dictionary, level, last)));
+        previousChunk = input;
+        chunk = last ? null : new byte[CHUNK_SIZE];
+        chunkLength = 0;
+        while (inFlight.size() > maxInFlight) {
+            collect(inFlight.poll());
+        }
+    }
+
+    private void collect(Future<byte[]> future) throws IOException {
+        byte[] part;
+        try {
+            part = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deflating");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to deflate zip entry", e.getCause());
+        }
+        compressed.add(part);
+        compressedSize += part.length;
+    }
+
+    private void discard() {
+        for (Future<byte[]> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        compressed.clear();
+        entry = null;
+    }
+
+    /**
+     * Deflates one chunk as raw deflate data. All chunks but the last end on a
+     * byte boundary after a sync flush; the last one ends the stream.
+     */
+    static byte[] deflate(byte[] input, int length, byte[] dictionary, int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.exportgenerator.demo.services.io;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A file written by one thread while another copies it out as it grows.
+ * <p>
+ * The writer's bytes become visible to the reader each time its buffer
+ * reaches the file. The reader waits for at least {@code chunkSize} new bytes,
+ * or the end of writing, before copying, so a small file is copied in one go
+ * once it is complete. After {@link #abandon()} no writer can be opened, and
+ * the call waits for an open writer to be closed, so the file can be deleted
+ * safely.
+ */
+public final class SpoolFile {
+
+    private final Path file;
+    private final int chunkSize;
+
+    // guarded by this
+    private long written;
+    private boolean opened;
+    private boolean ended;
+    private boolean abandoned;
+
+    /**
+     * @param file      the file, which must exist
+     * @param chunkSize the number of new bytes a reader waits for
+     */
+    public SpoolFile(Path file, int chunkSize) {
+        this.file = file;
+        this.chunkSize = chunkSize;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Opens the writer. Closing it ends the file, whether or not writing
+     * succeeded.
+     *
+     * @return the buffered output stream
+     * @throws IOException if the spool was abandoned or cannot be opened
+     */
+    public OutputStream openOutput() throws IOException {
+        synchronized (this) {
+            if (abandoned || opened) {
+                throw new InterruptedIOException("Spool file was abandoned");
+            }
+            opened = true;
+        }
+        OutputStream fileOut;
+        try {
+            fileOut = Files.newOutputStream(file);
+        } catch (IOException | RuntimeException e) {
+            end();
+            throw e;
+        }
+        return new BufferedOutputStream(new FilterOutputStream(fileOut) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                advance(len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                advance(1);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    end();
+                }
+            }
+        }, chunkSize);
+    }
+
+    /**
+     * Waits until at least {@code chunkSize} bytes past {@code position} are
+     * in the file or writing has ended.
+     *
+     * @param position the number of bytes already copied
+     * @return the number of bytes in the file
+     * @throws InterruptedIOException if the waiting thread is interrupted
+     */
+    public synchronized long awaitWritten(long position) throws InterruptedIOException {
+        try {
+            while (!ended && written - position < chunkSize) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the spool file");
+        }
+        return written;
+    }
+
+    public synchronized boolean isEnded() {
+        return ended;
+    }
+
+    public synchronized long size() {
+        return written;
+    }
+
+    /**
+     * Stops a writer from being opened and waits for an open one to be
+     * closed.
+     *
+     * @throws InterruptedIOException if the waiting thread is interrupted
+     */
+    public synchronized void abandon() throws InterruptedIOException {
+        abandoned = true;
+        try {
+            while (opened && !ended) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the spool writer");
+        }
+    }
+
+    private synchronized void advance(int bytes) {
+        written += bytes;
+        notifyAll();
+    }
+
+    private synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+}
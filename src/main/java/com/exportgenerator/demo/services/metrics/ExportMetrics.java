@@ -0,0 +1,242 @@
+package com.exportgenerator.demo.services.metrics;
+
+import com.exportgenerator.demo.services.ExportAbortedException;
+import com.exportgenerator.demo.services.io.CountingOutputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for the export pipeline, tagged by {@code engine} and
+ * {@code format}.
+ * <p>
+ * Everything is recorded once per export or per phase, never per row, so the
+ * overhead is a handful of map lookups per export.
+ * <ul>
+ * <li>{@code export.duration} - timer per export, tagged {@code outcome} (success, error, aborted)</li>
+ * <li>{@code export.phase} - timer per phase ({@code build}, {@code spill}, {@code write})</li>
+ * <li>{@code export.rows} / {@code export.bytes} - data rows and bytes delivered</li>
+ * <li>{@code export.throughput} - rows per second of each successful export</li>
+ * <li>{@code export.spill.bytes} - bytes written to SXSSF temp files</li>
+ * <li>{@code export.spill.disk.bytes} - bytes currently held in SXSSF temp files</li>
+ * <li>{@code export.spill.quota.exceeded} - exports stopped by a spill quota, tagged {@code scope} (export, global)</li>
+ * <li>{@code export.in.flight} - exports currently running</li>
+ * <li>{@code export.failures} - failed exports, tagged {@code reason} (error, aborted)</li>
+ * <li>{@code export.aborts} - aborted exports, tagged {@code cause} (disconnected, timeout, cancelled, abandoned)</li>
+ * <li>{@code export.admission.queued} / {@code export.admission.running} - exports waiting for and holding budget</li>
+ * <li>{@code export.admission.wait} - time admitted exports spent queued</li>
+ * <li>{@code export.admission.rejected} - exports turned away, tagged {@code reason} (queue_full, timeout)</li>
+ * <li>{@code export.first.completed} - time from JVM start to the end of the first successful export, for
+ * comparing cold starts with {@code application.ready.time}</li>
+ * </ul>
+ */
+@Component
+public class ExportMetrics {
+
+    public static final String PHASE_BUILD = "build";
+    public static final String PHASE_SPILL = "spill";
+    public static final String PHASE_WRITE = "write";
+
+    private static final Logger log = LoggerFactory.getLogger(ExportMetrics.class);
+
+    private final MeterRegistry registry;
+    private final Map<Tags, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * JVM uptime in milliseconds when the first export succeeded, or -1.
+     */
+    private final AtomicLong firstExportMillis = new AtomicLong(-1);
+
+    public ExportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Metrics that record nothing, for services created outside Spring.
+     *
+     * @return metrics backed by an empty composite registry
+     */
+    public static ExportMetrics disabled() {
+        return new ExportMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Starts recording one export and counts it as in flight until
+     * {@link Recording#succeeded} or {@link Recording#failed} is called.
+     *
+     * @param engine the engine producing the export
+     * @param format the delivered format, for example {@code xlsx} or {@code csv}
+     * @return the recording
+     */
+    public Recording start(String engine, String format) {
+        Tags tags = Tags.of("engine", engine, "format", format);
+        AtomicInteger running = inFlight.computeIfAbsent(tags, key -> registry.gauge("export.in.flight", key,
+                new AtomicInteger()));
+        running.incrementAndGet();
+        return new Recording(tags, running);
+    }
+
+    public void recordPhase(String engine, String format, String phase, long nanos) {
+        Timer.builder("export.phase")
+                .tags("engine", engine, "format", format, "phase", phase)
+                .register(registry)
+                .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSpill(String engine, long bytes) {
+        Counter.builder("export.spill.bytes")
+                .baseUnit("bytes")
+                .tag("engine", engine)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    /**
+     * Registers the gauge of bytes currently held in spill files.
+     *
+     * @param spillManager the spill manager, held weakly by the registry
+     * @param bytesInUse   reads the bytes in use
+     * @param <T>          the spill manager type
+     */
+    public <T> void spillGauge(T spillManager, ToDoubleFunction<T> bytesInUse) {
+        Gauge.builder("export.spill.disk.bytes", spillManager, bytesInUse).baseUnit("bytes").register(registry);
+    }
+
+    public void spillQuotaExceeded(String scope) {
+        Counter.builder("export.spill.quota.exceeded").tag("scope", scope).register(registry).increment();
+    }
+
+    /**
+     * Registers the admission gauges against the admission service.
+     *
+     * @param admission the admission service, held weakly by the registry
+     * @param queued    reads the number of queued exports
+     * @param running   reads the number of admitted exports
+     * @param <T>       the admission service type
+     */
+    public <T> void admissionGauges(T admission, ToDoubleFunction<T> queued, ToDoubleFunction<T> running) {
+        Gauge.builder("export.admission.queued", admission, queued).register(registry);
+        Gauge.builder("export.admission.running", admission, running).register(registry);
+    }
+
+    public void admissionWaited(long nanos) {
+        Timer.builder("export.admission.wait").register(registry).record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    public void admissionRejected(String reason) {
+        Counter.builder("export.admission.rejected").tag("reason", reason).register(registry).increment();
+    }
+
+    private void firstExportSucceeded() {
+        if (firstExportMillis.get() < 0
+                && firstExportMillis.compareAndSet(-1, ManagementFactory.getRuntimeMXBean().getUptime())) {
+            TimeGauge.builder("export.first.completed", firstExportMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                    .register(registry);
+            log.info("First export completed {} ms after JVM start", firstExportMillis.get());
+        }
+    }
+
+    /**
+     * One export in progress.
+     */
+    public final class Recording {
+
+        private final Tags tags;
+        private final AtomicInteger running;
+        private final long startNanos = System.nanoTime();
+        private CountingOutputStream counter;
+
+        private Recording(Tags tags, AtomicInteger running) {
+            this.tags = tags;
+            this.running = running;
+        }
+
+        /**
+         * Wraps the destination stream so the delivered bytes are counted.
+         *
+         * @param out the destination stream
+         * @return the counting stream
+         */
+        public OutputStream count(OutputStream out) {
+            counter = new CountingOutputStream(out);
+            return counter;
+        }
+
+        public void succeeded(long rows) {
+            long nanos = System.nanoTime() - startNanos;
+            running.decrementAndGet();
+            timer("success").record(nanos, TimeUnit.NANOSECONDS);
+            Counter.builder("export.rows").baseUnit("rows").tags(tags).register(registry).increment(rows);
+            if (nanos > 0) {
+                DistributionSummary.builder("export.throughput")
+                        .baseUnit("rows.per.second")
+                        .tags(tags)
+                        .register(registry)
+                        .record(rows * 1e9 / nanos);
+            }
+            recordBytes();
+            firstExportSucceeded();
+        }
+
+        /**
+         * Records a failed export. Failures caused by the client going away,
+         * a timeout or a cancel are counted as {@code aborted} rather than
+         * {@code error}.
+         *
+         * @param failure the cause
+         */
+        public void failed(Throwable failure) {
+            long nanos = System.nanoTime() - startNanos;
+            running.decrementAndGet();
+            String abortCause = abortCause(failure);
+            String reason = abortCause != null ? "aborted" : "error";
+            timer(reason).record(nanos, TimeUnit.NANOSECONDS);
+            Counter.builder("export.failures").tags(tags).tag("reason", reason).register(registry).increment();
+            if (abortCause != null) {
+                Counter.builder("export.aborts").tags(tags).tag("cause", abortCause).register(registry).increment();
+            }
+            recordBytes();
+        }
+
+        private static String abortCause(Throwable failure) {
+            for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ExportAbortedException aborted) {
+                    return aborted.getReason().tag();
+                }
+                if (DisconnectedClientHelper.isClientDisconnectedException(cause)) {
+                    return ExportAbortedException.Reason.DISCONNECTED.tag();
+                }
+            }
+            return null;
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder("export.duration").tags(tags).tag("outcome", outcome).register(registry);
+        }
+
+        private void recordBytes() {
+            if (counter != null) {
+                Counter.builder("export.bytes").baseUnit("bytes").tags(tags).register(registry)
+                        .increment(counter.getCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.exportgenerator.demo.services.ooxml;
+
+import com.exportgenerator.demo.services.schema.RowPlan;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes the rows of a {@link RowPlan} as SpreadsheetML.
+ * <p>
+ * Column references, headers, the text around indexed values and every cycled
+ * value are escaped and encoded once when the writer is created, so writing a
+ * row only copies bytes and formats integers. In typed mode, dates become
+ * styled number cells and cycled values go through the shared-strings table
+ * while it has room. A writer is used by one export at a time.
+ */
+public final class OoxmlRowWriter {
+
+    private static final int UNRESOLVED = -2;
+
+    private final RowPlan plan;
+    private final SharedStrings sharedStrings;
+    private final int dateStyle;
+    private final byte[] isoDate;
+    private final long excelDate;
+    private final byte[][] columnReferences;
+    private final byte[][] headers;
+    private final byte[][] prefixes;
+    private final byte[][] suffixes;
+    private final byte[][][] cycleCells;
+    private final int[][] sharedIndexes;
+
+    /**
+     * @param plan          the compiled schema
+     * @param sharedStrings the shared-strings table for typed cells, or
+     *                      {@code null} to write every value inline
+     * @param dateStyle     the {@code cellXfs} index of the date format, used
+     *                      with {@code sharedStrings}
+     */
+    public OoxmlRowWriter(RowPlan plan, SharedStrings sharedStrings, int dateStyle) {
+        this.plan = plan;
+        this.sharedStrings = sharedStrings;
+        this.dateStyle = dateStyle;
+        this.isoDate = OoxmlWriter.ascii(plan.isoDate());
+        this.excelDate = plan.excelDate();
+
+        int count = plan.columnCount();
+        this.columnReferences = new byte[count][];
+        this.headers = new byte[count][];
+        this.prefixes = new byte[count][];
+        this.suffixes = new byte[count][];
+        this.cycleCells = new byte[count][][];
+        this.sharedIndexes = new int[count][];
+        for (int column = 0; column < count; column++) {
+            columnReferences[column] = OoxmlWriter.columnReference(column);
+            headers[column] = OoxmlWriter.escaped(plan.columnNames()[column]);
+            prefixes[column] = OoxmlWriter.escaped(plan.prefix(column));
+            suffixes[column] = OoxmlWriter.escaped(plan.suffix(column));
+            String[] values = plan.cycleValues(column);
+            cycleCells[column] = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                cycleCells[column][i] = OoxmlWriter.escaped(values[i]);
+            }
+            sharedIndexes[column] = new int[values.length];
+            Arrays.fill(sharedIndexes[column], UNRESOLVED);
+        }
+    }
+
+    public void writeHeader(OoxmlWriter writer) throws IOException {
+        writer.startRow(1);
+        for (int column = 0; column < headers.length; column++) {
+            writer.inlineString(columnReferences[column], 1, headers[column]);
+        }
+        writer.endRow();
+    }
+
+    /**
+     * Writes one data row.
+     *
+     * @param writer    the writer
+     * @param rowNumber the one-based spreadsheet row number
+     * @param rowIndex  the index of the row
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeRow(OoxmlWriter writer, int rowNumber, int rowIndex) throws IOException {
+        writer.startRow(rowNumber);
+        for (int column = 0; column < columnReferences.length; column++) {
+            byte[] reference = columnReferences[column];
+            switch (plan.generator(column)) {
+                case ROW_INDEX -> writer.number(reference, rowNumber, rowIndex);
+                case INDEXED_TEXT -> {
+                    writer.startInlineString(reference, rowNumber);
+                    writer.write(prefixes[column]);
+                    writer.write(rowIndex);
+                    writer.write(suffixes[column]);
+                    writer.endInlineString();
+                }
+                case EXPORT_DATE -> {
+                    if (sharedStrings != null) {
+                        writer.styledNumber(reference, rowNumber, dateStyle, excelDate);
+                    } else {
+                        writer.inlineString(reference, rowNumber, isoDate);
+                    }
+                }
+                case CYCLE -> {
+                    int value = plan.cycleIndex(column, rowIndex);
+                    int sharedIndex = sharedIndex(column, value);
+                    if (sharedIndex >= 0) {
+                        writer.sharedString(reference, rowNumber, sharedIndex);
+                        sharedStrings.reference();
+                    } else {
+                        writer.inlineString(reference, rowNumber, cycleCells[column][value]);
+                    }
+                }
+            }
+        }
+        writer.endRow();
+    }
+
+    /**
+     * Returns the shared-strings index of a cycled value, registering it on
+     * first use.
+     *
+     * @return the index, or -1 if the value must be written inline
+     */
+    private int sharedIndex(int column, int value) {
+        if (sharedStrings == null) {
+            return -1;
+        }
+        int index = sharedIndexes[column][value];
+        if (index == UNRESOLVED) {
+            index = sharedStrings.indexOf(plan.cycleValues(column)[value]);
+            sharedIndexes[column][value] = index;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,167 @@
+package com.exportgenerator.demo.services.ooxml;
+
+import com.exportgenerator.demo.services.io.BufferedByteWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal buffered writer for SpreadsheetML parts. Cell markup is written from
+ * pre-encoded byte arrays, so writing a cell allocates nothing.
+ */
+public final class OoxmlWriter extends BufferedByteWriter {
+
+    private static final byte[] CELL_START = ascii("<c r=\"");
+    private static final byte[] INLINE_STRING_START = ascii("\" t=\"inlineStr\"><is><t>");
+    private static final byte[] INLINE_STRING_END = ascii("</t></is></c>");
+    private static final byte[] NUMBER_START = ascii("\"><v>");
+    private static final byte[] NUMBER_END = ascii("</v></c>");
+    private static final byte[] SHARED_STRING_START = ascii("\" t=\"s\"><v>");
+    private static final byte[] STYLE_START = ascii("\" s=\"");
+    private static final byte[] STYLED_NUMBER_START = ascii("\"><v>");
+    private static final byte[] ROW_START = ascii("<row r=\"");
+    private static final byte[] ROW_START_END = ascii("\">");
+    private static final byte[] ROW_END = ascii("</row>");
+    private static final byte[] AMP = ascii("&amp;");
+    private static final byte[] LT = ascii("&lt;");
+    private static final byte[] GT = ascii("&gt;");
+    private static final byte[] QUOT = ascii("&quot;");
+
+    public OoxmlWriter(OutputStream out, int bufferSize) {
+        super(out, bufferSize);
+    }
+
+    /**
+     * XML-escapes and UTF-8 encodes a text value once so it can be written
+     * repeatedly with {@link #write(byte[])}.
+     *
+     * @param value the text
+     * @return the escaped, encoded bytes
+     */
+    public static byte[] escaped(String value) {
+        return value.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the spreadsheet column reference for a zero-based column index
+     * (0 → A, 25 → Z, 26 → AA).
+     *
+     * @param columnIndex the zero-based column index
+     * @return the encoded column letters
+     */
+    public static byte[] columnReference(int columnIndex) {
+        StringBuilder letters = new StringBuilder();
+        for (int index = columnIndex + 1; index > 0; index = (index - 1) / 26) {
+            letters.insert(0, (char) ('A' + (index - 1) % 26));
+        }
+        return ascii(letters.toString());
+    }
+
+    /**
+     * XML-escapes and writes text that is only known at write time, such as
+     * values read from a database. Characters that XML 1.0 does not allow are
+     * dropped.
+     *
+     * @param text the text
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeEscaped(CharSequence text) throws IOException {
+        writeUtf8(text);
+    }
+
+    @Override
+    protected void writeCodePoint(int codePoint) throws IOException {
+        switch (codePoint) {
+            case '&' -> write(AMP);
+            case '<' -> write(LT);
+            case '>' -> write(GT);
+            case '"' -> write(QUOT);
+            default -> {
+                if (codePoint >= 0x20 || codePoint == '\t' || codePoint == '\n' || codePoint == '\r') {
+                    super.writeCodePoint(codePoint);
+                }
+            }
+        }
+    }
+
+    public void startRow(int rowNumber) throws IOException {
+        write(ROW_START);
+        write(rowNumber);
+        write(ROW_START_END);
+    }
+
+    public void endRow() throws IOException {
+        write(ROW_END);
+    }
+
+    /**
+     * Opens an inline string cell; the caller writes the escaped text and then
+     * calls {@link #endInlineString()}.
+     *
+     * @param columnReference the column letters from {@link #columnReference(int)}
+     * @param rowNumber       the one-based row number
+     */
+    public void startInlineString(byte[] columnReference, int rowNumber) throws IOException {
+        startCell(columnReference, rowNumber);
+        write(INLINE_STRING_START);
+    }
+
+    public void endInlineString() throws IOException {
+        write(INLINE_STRING_END);
+    }
+
+    public void inlineString(byte[] columnReference, int rowNumber, byte[] text) throws IOException {
+        startInlineString(columnReference, rowNumber);
+        write(text);
+        endInlineString();
+    }
+
+    public void number(byte[] columnReference, int rowNumber, long value) throws IOException {
+        startCell(columnReference, rowNumber);
+        write(NUMBER_START);
+        write(value);
+        write(NUMBER_END);
+    }
+
+    /**
+     * Writes a numeric cell that references a cell format in {@code styles.xml}.
+     *
+     * @param columnReference the column letters
+     * @param rowNumber       the one-based row number
+     * @param styleIndex      the index into {@code cellXfs}
+     * @param value           the numeric value
+     */
+    public void styledNumber(byte[] columnReference, int rowNumber, int styleIndex, long value) throws IOException {
+        startCell(columnReference, rowNumber);
+        write(STYLE_START);
+        write(styleIndex);
+        write(STYLED_NUMBER_START);
+        write(value);
+        write(NUMBER_END);
+    }
+
+    /**
+     * Writes a cell that references an entry of the shared-strings table.
+     *
+     * @param columnReference the column letters
+     * @param rowNumber       the one-based row number
+     * @param index           the shared-strings index
+     */
+    public void sharedString(byte[] columnReference, int rowNumber, int index) throws IOException {
+        startCell(columnReference, rowNumber);
+        write(SHARED_STRING_START);
+        write(index);
+        write(NUMBER_END);
+    }
+
+    private void startCell(byte[] columnReference, int rowNumber) throws IOException {
+        write(CELL_START);
+        write(columnReference);
+        write(rowNumber);
+    }
+}
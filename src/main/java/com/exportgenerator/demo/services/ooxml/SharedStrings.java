@@ -0,0 +1,86 @@
+package com.exportgenerator.demo.services.ooxml;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded shared-strings table for a single export.
+ * <p>
+ * Once {@code maxCardinality} distinct values have been registered, further
+ * new values are rejected and the caller falls back to inline strings, so a
+ * column that turns out to be high-cardinality cannot grow the table without
+ * limit.
+ */
+public final class SharedStrings {
+
+    private static final byte[] SST_START = OoxmlWriter.ascii("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"");
+    private static final byte[] UNIQUE_COUNT = OoxmlWriter.ascii("\" uniqueCount=\"");
+    private static final byte[] ATTRIBUTES_END = OoxmlWriter.ascii("\">");
+    private static final byte[] ITEM_START = OoxmlWriter.ascii("<si><t>");
+    private static final byte[] ITEM_END = OoxmlWriter.ascii("</t></si>");
+    private static final byte[] SST_END = OoxmlWriter.ascii("</sst>");
+
+    private final int maxCardinality;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<byte[]> values = new ArrayList<>();
+    private long references;
+
+    public SharedStrings(int maxCardinality) {
+        this.maxCardinality = maxCardinality;
+    }
+
+    /**
+     * Returns the table index for a value, registering it if there is room.
+     *
+     * @param value the cell text
+     * @return the index, or -1 if the table is full and the value is new
+     */
+    public int indexOf(String value) {
+        Integer index = indexes.get(value);
+        if (index != null) {
+            return index;
+        }
+        if (values.size() >= maxCardinality) {
+            return -1;
+        }
+        indexes.put(value, values.size());
+        values.add(OoxmlWriter.escaped(value));
+        return values.size() - 1;
+    }
+
+    /**
+     * Records that a cell referencing the table has been written. The total is
+     * reported in the {@code count} attribute of the part.
+     */
+    public void reference() {
+        references++;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Writes the {@code xl/sharedStrings.xml} part.
+     *
+     * @param writer the writer positioned at the start of the part
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(OoxmlWriter writer) throws IOException {
+        writer.write(SST_START);
+        writer.write(references);
+        writer.write(UNIQUE_COUNT);
+        writer.write(values.size());
+        writer.write(ATTRIBUTES_END);
+        for (byte[] value : values) {
+            writer.write(ITEM_START);
+            writer.write(value);
+            writer.write(ITEM_END);
+        }
+        writer.write(SST_END);
+    }
+}
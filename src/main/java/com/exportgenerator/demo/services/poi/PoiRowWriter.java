@@ -0,0 +1,63 @@
+package com.exportgenerator.demo.services.poi;
+
+import com.exportgenerator.demo.services.schema.RowPlan;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * Writes the rows of a {@link RowPlan} into POI rows.
+ * <p>
+ * Constant cells share one string instance, and indexed text is built in a
+ * builder reused across rows, so each cell allocates at most its own string.
+ * A writer is not thread-safe; create one per sheet being filled.
+ */
+public final class PoiRowWriter {
+
+    private final RowPlan plan;
+    private final CellStyle dateStyle;
+    private final double excelDate;
+    private final StringBuilder text = new StringBuilder(64);
+
+    /**
+     * @param plan      the compiled schema
+     * @param dateStyle the shared date style, or {@code null} to write dates as
+     *                  ISO strings
+     */
+    public PoiRowWriter(RowPlan plan, CellStyle dateStyle) {
+        this.plan = plan;
+        this.dateStyle = dateStyle;
+        this.excelDate = plan.excelDate();
+    }
+
+    public void writeHeader(Row row) {
+        String[] columnNames = plan.columnNames();
+        for (int column = 0; column < columnNames.length; column++) {
+            row.createCell(column).setCellValue(columnNames[column]);
+        }
+    }
+
+    public void writeRow(Row row, int rowIndex) {
+        int columnCount = plan.columnCount();
+        for (int column = 0; column < columnCount; column++) {
+            Cell cell = row.createCell(column);
+            switch (plan.generator(column)) {
+                case ROW_INDEX -> cell.setCellValue(rowIndex);
+                case INDEXED_TEXT -> {
+                    text.setLength(0);
+                    text.append(plan.prefix(column)).append(rowIndex).append(plan.suffix(column));
+                    cell.setCellValue(text.toString());
+                }
+                case EXPORT_DATE -> {
+                    if (dateStyle != null) {
+                        cell.setCellValue(excelDate);
+                        cell.setCellStyle(dateStyle);
+                    } else {
+                        cell.setCellValue(plan.isoDate());
+                    }
+                }
+                case CYCLE -> cell.setCellValue(plan.cycleValue(column, rowIndex));
+            }
+        }
+    }
+}
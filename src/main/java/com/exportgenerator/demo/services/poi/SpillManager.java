@@ -0,0 +1,216 @@
+package com.exportgenerator.demo.services.poi;
+
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import jakarta.annotation.PostConstruct;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Owns the directory where SXSSF workbooks spill rows that left their window.
+ * <p>
+ * Every workbook gets its own subdirectory, deleted when the workbook is
+ * closed. Writes are checked against a per-export quota
+ * ({@code export.spill.max-bytes-per-export}) and a quota shared by all
+ * exports ({@code export.spill.max-bytes}); 0 disables a quota.
+ * <p>
+ * The directory must be dedicated to one process: on startup, everything in
+ * it is left over from a crashed run and is deleted. Sheet files that older
+ * versions left in POI's default temp directory, which other processes may
+ * share, are only deleted once they are an hour old.
+ */
+@Component
+public class SpillManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SpillManager.class);
+
+    /**
+     * Sheet files of exports that never disposed their workbook.
+     */
+    private static final String LEGACY_SHEET_FILES = "poi-sxssf-{sheet,template}*";
+
+    private static final Duration LEGACY_ORPHAN_AGE = Duration.ofHours(1);
+
+    private final Path directory;
+    private final int window;
+    private final boolean compress;
+    private final long maxBytesPerExport;
+    private final long maxBytes;
+    private final ExportMetrics exportMetrics;
+    private final AtomicLong bytesInUse = new AtomicLong();
+
+    @Autowired
+    public SpillManager(ExportMetrics exportMetrics,
+            @Value("${export.spill.directory:${java.io.tmpdir}/export-spill}") String directory,
+            @Value("${export.spill.window:100}") int window,
+            @Value("${export.spill.compress:false}") boolean compress,
+            @Value("${export.spill.max-bytes-per-export:0}") long maxBytesPerExport,
+            @Value("${export.spill.max-bytes:0}") long maxBytes) {
+        this(Path.of(directory), window, compress, maxBytesPerExport, maxBytes, exportMetrics);
+    }
+
+    public SpillManager(Path directory, int window, boolean compress, long maxBytesPerExport, long maxBytes,
+            ExportMetrics exportMetrics) {
+        if (window < 1) {
+            throw new IllegalArgumentException("export.spill.window must be positive");
+        }
+        this.directory = directory;
+        this.window = window;
+        this.compress = compress;
+        this.maxBytesPerExport = maxBytesPerExport;
+        this.maxBytes = maxBytes;
+        this.exportMetrics = exportMetrics;
+        exportMetrics.spillGauge(this, SpillManager::bytesInUse);
+    }
+
+    /**
+     * Spill settings for services created outside Spring: the default SXSSF
+     * window, no compression and no quotas.
+     *
+     * @return the spill manager
+     */
+    public static SpillManager defaults() {
+        return new SpillManager(Path.of(System.getProperty("java.io.tmpdir"), "export-spill"),
+                SXSSFWorkbook.DEFAULT_WINDOW_SIZE, false, 0, 0, ExportMetrics.disabled());
+    }
+
+    /**
+     * Creates the spill directory, points POI's own temp files (the package
+     * template written by {@link SXSSFWorkbook#write}) at it, and sweeps
+     * files left behind by earlier processes.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(directory.toFile()));
+
+        Instant now = Instant.now();
+        sweep(directory, "*", FileTime.from(now));
+        sweep(Path.of(System.getProperty("java.io.tmpdir"), "poifiles"), LEGACY_SHEET_FILES,
+                FileTime.from(now.minus(LEGACY_ORPHAN_AGE)));
+    }
+
+    /**
+     * Creates a workbook that spills into its own subdirectory under the
+     * configured quotas. Close it to delete its files.
+     *
+     * @return the workbook
+     * @throws IOException if the subdirectory cannot be created
+     */
+    public SpillTrackingWorkbook newWorkbook() throws IOException {
+        Files.createDirectories(directory);
+        Path exportDirectory = Files.createTempDirectory(directory, "export-");
+        return new SpillTrackingWorkbook(window, compress, exportDirectory, new ExportQuota());
+    }
+
+    public int window() {
+        return window;
+    }
+
+    public boolean compress() {
+        return compress;
+    }
+
+    /**
+     * @return bytes currently held in temp files by open workbooks
+     */
+    public long bytesInUse() {
+        return bytesInUse.get();
+    }
+
+    /**
+     * Deletes the entries of a directory that were last modified before the
+     * given time. A subdirectory is only deleted if everything in it is that
+     * old.
+     */
+    private static void sweep(Path directory, String glob, FileTime before) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, glob)) {
+            for (Path entry : entries) {
+                try (Stream<Path> tree = Files.walk(entry)) {
+                    List<Path> files = tree.sorted(Comparator.reverseOrder()).toList();
+                    if (files.stream().allMatch(file -> modifiedBefore(file, before))) {
+                        for (Path file : files) {
+                            Files.deleteIfExists(file);
+                        }
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to sweep spill file {}", entry, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep spill directory {}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} orphaned spill entries from {}", deleted, directory);
+        }
+    }
+
+    private static boolean modifiedBefore(Path file, FileTime before) {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(before) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Quota of one workbook, drawing on the global quota as it grows.
+     */
+    private final class ExportQuota implements SpillQuota {
+
+        private final AtomicLong reserved = new AtomicLong();
+        private volatile boolean exceeded;
+
+        @Override
+        public void reserve(long bytes) throws IOException {
+            if (exceeded) {
+                throw new SpillQuotaExceededException("Export already exceeded its spill quota");
+            }
+            long exportBytes = reserved.addAndGet(bytes);
+            if (maxBytesPerExport > 0 && exportBytes > maxBytesPerExport) {
+                reserved.addAndGet(-bytes);
+                exceeded = true;
+                exportMetrics.spillQuotaExceeded("export");
+                throw new SpillQuotaExceededException(
+                        "Export exceeded its spill quota of " + maxBytesPerExport + " bytes");
+            }
+            long totalBytes = bytesInUse.addAndGet(bytes);
+            if (maxBytes > 0 && totalBytes > maxBytes) {
+                bytesInUse.addAndGet(-bytes);
+                reserved.addAndGet(-bytes);
+                exceeded = true;
+                exportMetrics.spillQuotaExceeded("global");
+                throw new SpillQuotaExceededException("Spill directory exceeded its quota of " + maxBytes + " bytes");
+            }
+        }
+
+        @Override
+        public void release() {
+            bytesInUse.addAndGet(-reserved.getAndSet(0));
+        }
+    }
+}
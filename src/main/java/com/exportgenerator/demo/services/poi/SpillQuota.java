@@ -0,0 +1,32 @@
+package com.exportgenerator.demo.services.poi;
+
+import java.io.IOException;
+
+/**
+ * Disk budget for the temp files of a {@link SpillTrackingWorkbook}.
+ */
+public interface SpillQuota {
+
+    SpillQuota UNLIMITED = new SpillQuota() {
+        @Override
+        public void reserve(long bytes) {
+        }
+
+        @Override
+        public void release() {
+        }
+    };
+
+    /**
+     * Reserves disk for bytes about to be written to a temp file.
+     *
+     * @param bytes the number of bytes
+     * @throws SpillQuotaExceededException if the bytes do not fit
+     */
+    void reserve(long bytes) throws IOException;
+
+    /**
+     * Returns everything reserved so far, once the temp files are deleted.
+     */
+    void release();
+}
@@ -0,0 +1,14 @@
+package com.exportgenerator.demo.services.poi;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an export's temp files would exceed the per-export or global
+ * spill quota.
+ */
+public class SpillQuotaExceededException extends IOException {
+
+    public SpillQuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,215 @@
+package com.exportgenerator.demo.services.poi;
+
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.xssf.streaming.GZIPSheetDataWriter;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SXSSF workbook that measures how much time and disk its sheets spend on
+ * flushing rows out of the window into their temp files.
+ * <p>
+ * Sheets may be filled from several threads, so the totals are adders and
+ * the spill time is the sum over all sheets rather than wall-clock time.
+ * <p>
+ * A workbook created with a directory keeps its temp files there and checks
+ * every write against a {@link SpillQuota}. Closing it always deletes the
+ * temp files and the directory, whether the export succeeded or not.
+ */
+public class SpillTrackingWorkbook extends SXSSFWorkbook {
+
+    private final LongAdder spillNanos = new LongAdder();
+    private final LongAdder spillBytes = new LongAdder();
+
+    /**
+     * Directory holding this workbook's temp files, or {@code null} for POI's
+     * default temp directory.
+     */
+    private final Path directory;
+    private final SpillQuota quota;
+
+    private DeflatePool deflatePool = DeflatePool.disabled();
+    private ZipCompression packageCompression = ZipCompression.DEFAULT;
+
+    public SpillTrackingWorkbook() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public SpillTrackingWorkbook(int rowAccessWindowSize) {
+        super(rowAccessWindowSize);
+        this.directory = null;
+        this.quota = SpillQuota.UNLIMITED;
+    }
+
+    /**
+     * @param rowAccessWindowSize rows kept in memory per sheet
+     * @param compressTempFiles   whether temp files are gzip-compressed
+     * @param directory           the directory owned by this workbook, deleted on close
+     * @param quota               the disk budget for the temp files
+     */
+    public SpillTrackingWorkbook(int rowAccessWindowSize, boolean compressTempFiles, Path directory,
+            SpillQuota quota) {
+        super(null, rowAccessWindowSize, compressTempFiles);
+        this.directory = directory;
+        this.quota = quota;
+    }
+
+    /**
+     * @return nanoseconds spent writing rows to temp files so far
+     */
+    public long getSpillNanos() {
+        return spillNanos.sum();
+    }
+
+    /**
+     * @return bytes written to temp files so far, after any temp-file compression
+     */
+    public long getSpillBytes() {
+        return spillBytes.sum();
+    }
+
+    /**
+     * Sets how {@link #write} compresses the package.
+     *
+     * @param deflatePool the pool that opens the zip stream
+     * @param compression the compression level
+     */
+    public void setPackageCompression(DeflatePool deflatePool, ZipCompression compression) {
+        this.deflatePool = deflatePool;
+        this.packageCompression = compression;
+    }
+
+    @Override
+    protected ZipArchiveOutputStream createArchiveOutputStream(OutputStream out) {
+        ZipArchiveOutputStream zip = deflatePool.newZip(out, packageCompression);
+        zip.setUseZip64(zip64Mode);
+        return zip;
+    }
+
+    /**
+     * Closes the workbook and deletes its temp files, returning their bytes to
+     * the quota.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } catch (SpillQuotaExceededException e) {
+            // flushing the last buffered rows hit the quota that already failed the export
+        } finally {
+            dispose();
+            quota.release();
+            deleteDirectory();
+        }
+    }
+
+    private void deleteDirectory() throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private File createTempFile(String suffix) throws IOException {
+        return Files.createTempFile(directory, "sheet-", suffix).toFile();
+    }
+
+    @Override
+    protected SheetDataWriter createSheetDataWriter() throws IOException {
+        if (isCompressTempFiles()) {
+            return new TrackingGzipSheetDataWriter();
+        }
+        return new TrackingSheetDataWriter();
+    }
+
+    private OutputStream counting(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                quota.reserve(1);
+                out.write(b);
+                spillBytes.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                quota.reserve(len);
+                out.write(b, off, len);
+                spillBytes.add(len);
+            }
+        };
+    }
+
+    /*
+     * The writers are inner classes on purpose: the outer instance is assigned
+     * before the super constructor opens the temp file through createTempFile
+     * and decorateOutputStream.
+     */
+
+    private final class TrackingSheetDataWriter extends SheetDataWriter {
+
+        TrackingSheetDataWriter() throws IOException {
+            super(getSharedStringSource());
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return directory != null ? SpillTrackingWorkbook.this.createTempFile(".xml") : super.createTempFile();
+        }
+
+        @Override
+        protected OutputStream decorateOutputStream(FileOutputStream fos) {
+            return counting(fos);
+        }
+
+        @Override
+        public void writeRow(int rownum, SXSSFRow row) throws IOException {
+            long start = System.nanoTime();
+            super.writeRow(rownum, row);
+            spillNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private final class TrackingGzipSheetDataWriter extends GZIPSheetDataWriter {
+
+        TrackingGzipSheetDataWriter() throws IOException {
+            super(getSharedStringSource());
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return directory != null ? SpillTrackingWorkbook.this.createTempFile(".xml.gz") : super.createTempFile();
+        }
+
+        @Override
+        protected OutputStream decorateOutputStream(FileOutputStream fos) throws IOException {
+            return new GZIPOutputStream(counting(fos));
+        }
+
+        @Override
+        public void writeRow(int rownum, SXSSFRow row) throws IOException {
+            long start = System.nanoTime();
+            super.writeRow(rownum, row);
+            spillNanos.add(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.exportgenerator.demo.services.rowsource;
+
+import java.io.IOException;
+
+/**
+ * Pull-based source of export rows.
+ * <p>
+ * Engines call {@link #next()} to advance and then read each column of the
+ * current row. Implementations hold at most a bounded window of rows, so an
+ * export can stream tables far larger than the heap.
+ */
+public interface ExportRowSource extends AutoCloseable {
+
+    /**
+     * @return the column names, in column order
+     */
+    String[] columnNames();
+
+    /**
+     * Advances to the next row.
+     *
+     * @return {@code false} once the source is exhausted
+     * @throws IOException if the row cannot be read
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @param column the zero-based column index
+     * @return {@code true} if the column holds integral numbers
+     */
+    boolean isNumeric(int column);
+
+    /**
+     * @param column the zero-based column index
+     * @return {@code true} if the current row has no value in the column
+     */
+    boolean isNull(int column);
+
+    /**
+     * Returns the value of a numeric column in the current row.
+     *
+     * @param column the zero-based column index
+     * @return the value
+     */
+    long getLong(int column);
+
+    /**
+     * Returns the value of a text column in the current row. The returned
+     * sequence may be reused and is only valid until the next call on this
+     * source.
+     *
+     * @param column the zero-based column index
+     * @return the value
+     */
+    CharSequence getText(int column);
+
+    @Override
+    void close() throws IOException;
+}
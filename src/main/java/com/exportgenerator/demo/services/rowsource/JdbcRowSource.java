@@ -0,0 +1,177 @@
+package com.exportgenerator.demo.services.rowsource;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Row source that streams a query result through a forward-only, read-only
+ * cursor. The driver is asked to fetch {@code fetchSize} rows at a time, and
+ * only the current row is copied out of the result set, so memory use is
+ * bounded by the fetch window rather than the size of the table.
+ */
+public class JdbcRowSource implements ExportRowSource {
+
+    private final Connection connection;
+    private final boolean restoreAutoCommit;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final String[] columnNames;
+    private final boolean[] numeric;
+    private final long[] longs;
+    private final String[] texts;
+    private final boolean[] nulls;
+    private long rowsRead;
+
+    /**
+     * Executes the query and positions the source before the first row.
+     *
+     * @param connection the connection; it is not closed by this source
+     * @param sql        the query
+     * @param fetchSize  the number of rows the driver fetches per round trip
+     * @throws IOException if the query cannot be executed
+     */
+    public JdbcRowSource(Connection connection, String sql, int fetchSize) throws IOException {
+        this.connection = connection;
+        boolean autoCommit = false;
+        PreparedStatement prepared = null;
+        ResultSet result = null;
+        try {
+            // Some drivers (PostgreSQL among them) only use a cursor inside a transaction
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            prepared = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            prepared.setFetchSize(fetchSize);
+            result = prepared.executeQuery();
+            result.setFetchSize(fetchSize);
+
+            ResultSetMetaData metaData = result.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            this.columnNames = new String[columnCount];
+            this.numeric = new boolean[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnNames[i] = metaData.getColumnLabel(i + 1);
+                numeric[i] = isIntegral(metaData.getColumnType(i + 1));
+            }
+        } catch (SQLException e) {
+            IOException failure = new IOException("Failed to execute export query", e);
+            release(connection, autoCommit, prepared, result, failure);
+            throw failure;
+        }
+        this.restoreAutoCommit = autoCommit;
+        this.statement = prepared;
+        this.resultSet = result;
+        this.longs = new long[columnNames.length];
+        this.texts = new String[columnNames.length];
+        this.nulls = new boolean[columnNames.length];
+    }
+
+    /**
+     * Undoes a partly opened query: closes what was opened, then rolls back
+     * and turns auto-commit back on if this source turned it off. Failures
+     * are added to {@code failure} as suppressed exceptions.
+     */
+    private static void release(Connection connection, boolean restoreAutoCommit, PreparedStatement statement,
+            ResultSet resultSet, IOException failure) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+        if (restoreAutoCommit) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static boolean isIntegral(int sqlType) {
+        return sqlType == Types.TINYINT || sqlType == Types.SMALLINT || sqlType == Types.INTEGER
+                || sqlType == Types.BIGINT;
+    }
+
+    @Override
+    public String[] columnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        try {
+            if (!resultSet.next()) {
+                return false;
+            }
+            for (int i = 0; i < columnNames.length; i++) {
+                if (numeric[i]) {
+                    longs[i] = resultSet.getLong(i + 1);
+                } else {
+                    texts[i] = resultSet.getString(i + 1);
+                }
+                nulls[i] = resultSet.wasNull();
+            }
+            rowsRead++;
+            return true;
+        } catch (SQLException e) {
+            throw new IOException("Failed to read export row", e);
+        }
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    @Override
+    public boolean isNumeric(int column) {
+        return numeric[column];
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return nulls[column];
+    }
+
+    @Override
+    public long getLong(int column) {
+        return longs[column];
+    }
+
+    @Override
+    public CharSequence getText(int column) {
+        return texts[column];
+    }
+
+    ResultSet resultSet() {
+        return resultSet;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (statement) {
+            resultSet.close();
+            if (restoreAutoCommit) {
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to close export query", e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.exportgenerator.demo.services.schema;
+
+/**
+ * Type of the values in an export column.
+ */
+public enum ColumnType {
+
+    /**
+     * Integral numbers, written as number cells.
+     */
+    NUMBER,
+
+    /**
+     * Text, written as string cells.
+     */
+    TEXT,
+
+    /**
+     * Calendar dates; {@code export.cell-mode} decides whether they are
+     * written as ISO text or as numeric date cells.
+     */
+    DATE
+}
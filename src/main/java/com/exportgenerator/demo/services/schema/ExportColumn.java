@@ -0,0 +1,69 @@
+package com.exportgenerator.demo.services.schema;
+
+import java.util.List;
+
+/**
+ * One column of an export schema: its header, the type of its values and the
+ * generator that produces a value from the row index.
+ * <p>
+ * Use the factory methods; {@link ExportSchema} rejects columns whose type
+ * does not fit their generator.
+ *
+ * @param name      the header text
+ * @param type      the value type
+ * @param generator how values are produced
+ * @param prefix    text before the row index ({@link Generator#INDEXED_TEXT} only)
+ * @param suffix    text after the row index ({@link Generator#INDEXED_TEXT} only)
+ * @param values    the values cycled through ({@link Generator#CYCLE} only)
+ */
+public record ExportColumn(String name, ColumnType type, Generator generator, String prefix, String suffix,
+        List<String> values) {
+
+    /**
+     * How a column's value is derived from the row index (1-based).
+     */
+    public enum Generator {
+
+        /**
+         * The row index itself.
+         */
+        ROW_INDEX,
+
+        /**
+         * {@code prefix + rowIndex + suffix}.
+         */
+        INDEXED_TEXT,
+
+        /**
+         * The UTC date the export was started, the same on every row.
+         */
+        EXPORT_DATE,
+
+        /**
+         * {@code values[(rowIndex - 1) % values.size()]}.
+         */
+        CYCLE
+    }
+
+    public ExportColumn {
+        prefix = prefix != null ? prefix : "";
+        suffix = suffix != null ? suffix : "";
+        values = values != null ? List.copyOf(values) : List.of();
+    }
+
+    public static ExportColumn rowIndex(String name) {
+        return new ExportColumn(name, ColumnType.NUMBER, Generator.ROW_INDEX, null, null, null);
+    }
+
+    public static ExportColumn indexedText(String name, String prefix, String suffix) {
+        return new ExportColumn(name, ColumnType.TEXT, Generator.INDEXED_TEXT, prefix, suffix, null);
+    }
+
+    public static ExportColumn exportDate(String name) {
+        return new ExportColumn(name, ColumnType.DATE, Generator.EXPORT_DATE, null, null, null);
+    }
+
+    public static ExportColumn cycle(String name, List<String> values) {
+        return new ExportColumn(name, ColumnType.TEXT, Generator.CYCLE, null, null, values);
+    }
+}
@@ -0,0 +1,100 @@
+package com.exportgenerator.demo.services.schema;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Declarative column layout of an export, validated when it is created.
+ * <p>
+ * Engines do not interpret the columns row by row; they call
+ * {@link #compile(LocalDate)} once per export and write rows from the
+ * resulting {@link RowPlan}.
+ */
+public final class ExportSchema {
+
+    private static final int MAX_COLUMNS = SpreadsheetVersion.EXCEL2007.getMaxColumns();
+
+    private final List<ExportColumn> columns;
+    private final String[] columnNames;
+
+    /**
+     * @param columns the columns, in order
+     * @throws IllegalArgumentException if there are no columns or too many for
+     *                                  a sheet, a name is blank or repeated, or
+     *                                  a column's type, generator and
+     *                                  parameters do not fit together
+     */
+    public ExportSchema(List<ExportColumn> columns) {
+        if (columns.isEmpty() || columns.size() > MAX_COLUMNS) {
+            throw new IllegalArgumentException("An export schema needs between 1 and " + MAX_COLUMNS + " columns");
+        }
+        Set<String> names = new HashSet<>();
+        for (ExportColumn column : columns) {
+            validate(column);
+            if (!names.add(column.name())) {
+                throw new IllegalArgumentException("Duplicate column " + column.name());
+            }
+        }
+        this.columns = List.copyOf(columns);
+        this.columnNames = columns.stream().map(ExportColumn::name).toArray(String[]::new);
+    }
+
+    private static void validate(ExportColumn column) {
+        if (column.name() == null || column.name().isBlank()) {
+            throw new IllegalArgumentException("Column names must not be blank");
+        }
+        if (column.type() == null || column.generator() == null) {
+            throw new IllegalArgumentException("Column " + column.name() + " needs a type and a generator");
+        }
+        ColumnType expected = switch (column.generator()) {
+            case ROW_INDEX -> ColumnType.NUMBER;
+            case INDEXED_TEXT, CYCLE -> ColumnType.TEXT;
+            case EXPORT_DATE -> ColumnType.DATE;
+        };
+        if (column.type() != expected) {
+            throw new IllegalArgumentException("Column " + column.name() + " generated by " + column.generator()
+                    + " must be of type " + expected + ", not " + column.type());
+        }
+        boolean indexedText = column.generator() == ExportColumn.Generator.INDEXED_TEXT;
+        if (!indexedText && !(column.prefix().isEmpty() && column.suffix().isEmpty())) {
+            throw new IllegalArgumentException("Only INDEXED_TEXT column " + column.name() + " may have a prefix or suffix");
+        }
+        boolean cycle = column.generator() == ExportColumn.Generator.CYCLE;
+        if (cycle == column.values().isEmpty()) {
+            throw new IllegalArgumentException(cycle
+                    ? "CYCLE column " + column.name() + " needs at least one value"
+                    : "Only CYCLE column " + column.name() + " may have values");
+        }
+    }
+
+    public List<ExportColumn> columns() {
+        return columns;
+    }
+
+    public int columnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * @return the header texts, in column order; callers must not modify the
+     *         array
+     */
+    public String[] columnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Resolves the per-export constants and flattens the columns into a plan
+     * that writers can run without looking at the schema again.
+     *
+     * @param utcDate the date written to {@link ExportColumn.Generator#EXPORT_DATE} columns
+     * @return the plan, safe to share between threads
+     */
+    public RowPlan compile(LocalDate utcDate) {
+        return new RowPlan(this, utcDate);
+    }
+}
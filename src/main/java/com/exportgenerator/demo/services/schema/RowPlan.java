@@ -0,0 +1,140 @@
+package com.exportgenerator.demo.services.schema;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * An {@link ExportSchema} compiled for one export.
+ * <p>
+ * The columns are flattened into parallel arrays indexed by column, and
+ * values that are the same on every row, such as the formatted export date,
+ * are computed once. Writers loop over the columns and switch on
+ * {@link #generator(int)}, so the per-row path has no lookups, lambdas or
+ * string formatting. The plan is immutable and can be shared by the threads
+ * that fill different sheets; anything a writer reuses between rows, such as
+ * a text builder, belongs to the writer.
+ */
+public final class RowPlan {
+
+    /**
+     * Day number of the spreadsheet epoch; Excel date serials count days from
+     * 1899-12-30.
+     */
+    private static final long EXCEL_EPOCH_DAY = LocalDate.of(1899, 12, 30).toEpochDay();
+
+    private final ExportSchema schema;
+    private final LocalDate date;
+    private final String isoDate;
+    private final long excelDate;
+    private final ExportColumn.Generator[] generators;
+    private final String[] prefixes;
+    private final String[] suffixes;
+    private final String[][] values;
+
+    RowPlan(ExportSchema schema, LocalDate date) {
+        this.schema = schema;
+        this.date = date;
+        this.isoDate = date.format(DateTimeFormatter.ISO_DATE);
+        this.excelDate = date.toEpochDay() - EXCEL_EPOCH_DAY;
+
+        List<ExportColumn> columns = schema.columns();
+        int count = columns.size();
+        this.generators = new ExportColumn.Generator[count];
+        this.prefixes = new String[count];
+        this.suffixes = new String[count];
+        this.values = new String[count][];
+        for (int column = 0; column < count; column++) {
+            ExportColumn definition = columns.get(column);
+            generators[column] = definition.generator();
+            prefixes[column] = definition.prefix();
+            suffixes[column] = definition.suffix();
+            values[column] = definition.values().toArray(new String[0]);
+        }
+    }
+
+    public ExportSchema schema() {
+        return schema;
+    }
+
+    public int columnCount() {
+        return generators.length;
+    }
+
+    public String[] columnNames() {
+        return schema.columnNames();
+    }
+
+    public ExportColumn.Generator generator(int column) {
+        return generators[column];
+    }
+
+    /**
+     * @return {@code true} if the column holds numbers in every cell mode
+     */
+    public boolean isNumeric(int column) {
+        return generators[column] == ExportColumn.Generator.ROW_INDEX;
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    /**
+     * @return the export date as {@code yyyy-mm-dd}
+     */
+    public String isoDate() {
+        return isoDate;
+    }
+
+    /**
+     * @return the export date as a spreadsheet date serial
+     */
+    public long excelDate() {
+        return excelDate;
+    }
+
+    public String prefix(int column) {
+        return prefixes[column];
+    }
+
+    public String suffix(int column) {
+        return suffixes[column];
+    }
+
+    /**
+     * @return the values a {@link ExportColumn.Generator#CYCLE} column cycles
+     *         through; callers must not modify the array
+     */
+    public String[] cycleValues(int column) {
+        return values[column];
+    }
+
+    /**
+     * @return the position in {@link #cycleValues(int)} of the value on the
+     *         given row
+     */
+    public int cycleIndex(int column, int rowIndex) {
+        return Math.floorMod(rowIndex - 1, values[column].length);
+    }
+
+    public String cycleValue(int column, int rowIndex) {
+        return values[column][cycleIndex(column, rowIndex)];
+    }
+
+    /**
+     * Appends the text of a non-numeric cell, with dates as ISO text.
+     *
+     * @param column   the column
+     * @param rowIndex the row index
+     * @param text     the builder to append to
+     */
+    public void appendText(int column, int rowIndex, StringBuilder text) {
+        switch (generators[column]) {
+            case ROW_INDEX -> text.append(rowIndex);
+            case INDEXED_TEXT -> text.append(prefixes[column]).append(rowIndex).append(suffixes[column]);
+            case EXPORT_DATE -> text.append(isoDate);
+            case CYCLE -> text.append(cycleValue(column, rowIndex));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.services.ColumnarFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ColumnarExportService {
+
+    /**
+     * Streams the export to the response; NDJSON is gzip-encoded when the
+     * client accepts it.
+     *
+     * @param format   the output format
+     * @param rows     the number of data rows
+     * @param request  the HTTP request, used for content negotiation
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     */
+    void export(ColumnarFormat format, int rows, HttpServletRequest request, HttpServletResponse response)
+            throws IOException;
+
+    /**
+     * Writes the data rows to the given stream.
+     *
+     * @param format the output format
+     * @param rows   the number of data rows
+     * @param out    the destination stream, left open
+     * @throws IOException if an I/O error occurs
+     */
+    void write(ColumnarFormat format, int rows, OutputStream out) throws IOException;
+}
@@ -0,0 +1,33 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.services.DelimitedFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface DelimitedExportService {
+
+    /**
+     * Streams the export to the response, gzip-encoded when the client accepts it.
+     *
+     * @param format   the output format
+     * @param rows     the number of data rows
+     * @param request  the HTTP request, used for content negotiation
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     */
+    void export(DelimitedFormat format, int rows, HttpServletRequest request, HttpServletResponse response)
+            throws IOException;
+
+    /**
+     * Writes the header line and data rows to the given stream.
+     *
+     * @param format the output format
+     * @param rows   the number of data rows
+     * @param out    the destination stream, left open
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DelimitedFormat format, int rows, OutputStream out) throws IOException;
+}
@@ -1,8 +1,59 @@
 package com.exportgenerator.demo.services.serviceinterfaces;
 
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.services.rowsource.ExportRowSource;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
 
 public interface ExcelExportService {
     void exportToExcel(HttpServletResponse response) throws IOException;
+
+    void exportTo(OutputStream out, ExportProgressListener listener) throws IOException;
+
+    /**
+     * Writes one workbook holding the sheets of the given shard.
+     *
+     * @param out      the destination stream, left open
+     * @param shard    the sheets to write
+     * @param listener the progress listener, called with workbook-local sheet indexes
+     * @throws IOException if an I/O error occurs
+     */
+    void exportTo(OutputStream out, ExportShard shard, ExportProgressListener listener) throws IOException;
+
+    /**
+     * Writes a workbook with the rows pulled from the given source. The rows
+     * are split into sheets of at most {@code rowsPerSheet} rows, named like
+     * the sheets of an {@link com.exportgenerator.demo.model.ExportPlan}, so
+     * a source may hold more rows than one sheet can.
+     *
+     * @param out          the destination stream, left open
+     * @param source       the row source; the caller closes it
+     * @param rowsPerSheet the maximum number of data rows per sheet
+     * @param listener     the progress listener, notified per sheet
+     * @throws IOException if reading the source or writing fails
+     */
+    void exportTo(OutputStream out, ExportRowSource source, int rowsPerSheet, ExportProgressListener listener)
+            throws IOException;
+
+    /**
+     * Short name of the engine, used to tag metrics.
+     */
+    String engine();
+
+    /**
+     * Estimates the peak memory and temp-file disk that writing the given
+     * shard holds, for admission control.
+     *
+     * @param shard the sheets to write
+     * @return the estimated cost
+     */
+    ExportCost estimateCost(ExportShard shard);
+
+    /**
+     * Identifies the engine, engine version and settings that, together with
+     * the export layout and the UTC date, fully determine the exported data.
+     */
+    String variant();
 }
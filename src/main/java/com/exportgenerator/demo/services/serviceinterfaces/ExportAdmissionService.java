@@ -0,0 +1,48 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.model.ExportCost;
+
+import java.util.concurrent.RejectedExecutionException;
+
+public interface ExportAdmissionService {
+
+    /**
+     * Admits every export immediately, for services created outside Spring.
+     */
+    ExportAdmissionService UNLIMITED = (owner, cost) -> () -> {
+    };
+
+    /**
+     * Reserves budget for an export, waiting in the caller's fair-share queue
+     * while the budget is exhausted.
+     *
+     * @param owner the subject the export runs for
+     * @param cost  the estimated cost of the export
+     * @return the permit, to be closed when the export has finished
+     * @throws RejectedExecutionException if the queue is full or the budget
+     *                                    did not free up in time
+     */
+    Permit acquire(String owner, ExportCost cost);
+
+    /**
+     * Budget held by a running export.
+     */
+    interface Permit extends AutoCloseable {
+
+        /**
+         * Returns the part of the budget above the given cost and keeps the
+         * rest until the permit is closed, for an export that needs less once
+         * part of its work is done. Never holds more than was reserved.
+         *
+         * @param cost the budget to keep
+         */
+        default void retain(ExportCost cost) {
+        }
+
+        /**
+         * Returns the budget; closing a permit twice has no effect.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,71 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ExportBundleService {
+
+    /**
+     * Splits the requested rows into sheets and workbooks.
+     *
+     * @param request the export parameters
+     * @return the plan
+     * @throws IllegalArgumentException if the row count is out of range
+     */
+    ExportPlan plan(ExportRequest request);
+
+    /**
+     * Estimates the peak memory and temp-file disk of a planned export,
+     * counting the workbooks generated concurrently for a bundle.
+     *
+     * @param plan the plan
+     * @return the estimated cost
+     */
+    ExportCost estimateCost(ExportPlan plan);
+
+    /**
+     * Builds the download file name: an {@code .xlsx} for a single workbook
+     * and a {@code .zip} for a bundle.
+     *
+     * @param plan        the plan
+     * @param generatedAt the local generation time
+     * @return the file name
+     */
+    String fileName(ExportPlan plan, LocalDateTime generatedAt);
+
+    /**
+     * Plans the export, waits for admission and streams it to the HTTP
+     * response.
+     *
+     * @param request  the export parameters
+     * @param response the HTTP response
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the row count is out of range
+     * @throws java.util.concurrent.RejectedExecutionException if the export
+     *         was not admitted
+     */
+    void export(ExportRequest request, HttpServletResponse response) throws IOException;
+
+    /**
+     * Writes a planned export to the given stream: the workbook itself for a
+     * single-workbook plan, otherwise a zip of the workbooks.
+     *
+     * @param plan     the plan
+     * @param out      the destination stream, left open
+     * @param listener the progress listener, called with export-wide sheet indexes
+     * @throws IOException if an I/O error occurs
+     */
+    void write(ExportPlan plan, OutputStream out, ExportProgressListener listener) throws IOException;
+
+    /**
+     * Identifies the engine and sharding settings that, together with the plan
+     * and the UTC date, fully determine the exported data.
+     */
+    String variant();
+}
@@ -0,0 +1,21 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.model.CachedExport;
+import com.exportgenerator.demo.model.ExportRequest;
+
+import java.io.IOException;
+
+public interface ExportCacheService {
+
+    /**
+     * Returns today's export for the request from the cache, generating it
+     * first on a miss. Concurrent misses for the same key share a single
+     * generation.
+     *
+     * @param request the export parameters
+     * @return the cached export
+     * @throws IOException if generation or storing the file fails
+     * @throws IllegalArgumentException if the row count is out of range
+     */
+    CachedExport getOrGenerate(ExportRequest request) throws IOException;
+}
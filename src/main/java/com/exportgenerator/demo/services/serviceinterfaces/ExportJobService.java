@@ -0,0 +1,31 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import com.exportgenerator.demo.model.ExportJob;
+import com.exportgenerator.demo.model.ExportRequest;
+
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+public interface ExportJobService {
+
+    /**
+     * Queues a new export.
+     *
+     * @param request the export parameters
+     * @return the queued job
+     * @throws RejectedExecutionException if the job queue is full
+     * @throws IllegalArgumentException if the row count is out of range
+     */
+    ExportJob submit(ExportRequest request);
+
+    Optional<ExportJob> find(String id);
+
+    /**
+     * Asks a job to stop. A queued job never starts, a running one stops
+     * within about a thousand rows per sheet and a finished one is left as it is.
+     *
+     * @param id the job id
+     * @return the job, or empty if it is unknown or expired
+     */
+    Optional<ExportJob> cancel(String id);
+}
@@ -0,0 +1,20 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+/**
+ * Receives progress updates while an export is being generated. Updates for
+ * different sheets may arrive from different threads.
+ */
+@FunctionalInterface
+public interface ExportProgressListener {
+
+    ExportProgressListener NONE = (sheetIndex, rowsWritten) -> {
+    };
+
+    /**
+     * Reports the number of data rows generated so far for a sheet.
+     *
+     * @param sheetIndex  the position of the sheet in the workbook
+     * @param rowsWritten the cumulative number of data rows for that sheet
+     */
+    void rowsWritten(int sheetIndex, int rowsWritten);
+}
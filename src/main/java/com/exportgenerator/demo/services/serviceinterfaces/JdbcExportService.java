@@ -0,0 +1,20 @@
+package com.exportgenerator.demo.services.serviceinterfaces;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public interface JdbcExportService {
+
+    /**
+     * Streams the result of the configured export query to the response as an
+     * Excel file, once admission control lets the export run.
+     *
+     * @param owner    the subject the export runs for
+     * @param response the HTTP response
+     * @throws IOException if the query or the write fails
+     * @throws java.util.concurrent.RejectedExecutionException if the export
+     *         is not admitted
+     */
+    void exportToExcel(String owner, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,109 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.model.CachedExport;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExportController.class)
+public class ExportControllerCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExcelExportService excelExportService;
+
+    @MockBean
+    private ExportBundleService exportBundleService;
+
+    @MockBean
+    private ExportCacheService exportCacheService;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        Path file = Files.write(directory.resolve("abc.xlsx"), new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        when(exportCacheService.getOrGenerate(any())).thenReturn(new CachedExport("abc", file, 10, "data.xlsx"));
+    }
+
+    @Test
+    public void testCachedExportHasEtag() throws Exception {
+        mockMvc.perform(get("/api/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=data.xlsx"))
+                .andExpect(content().bytes(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }));
+    }
+
+    @Test
+    public void testIfNoneMatchReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/export").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testRangeReturnsPartialContent() throws Exception {
+        mockMvc.perform(get("/api/export").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().bytes(new byte[] { 2, 3, 4, 5 }));
+    }
+
+    @Test
+    public void testStaleIfRangeReturnsWholeFile() throws Exception {
+        mockMvc.perform(get("/api/export").header("Range", "bytes=2-5").header("If-Range", "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Length", "10"))
+                .andExpect(content().bytes(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }));
+    }
+
+    @Test
+    public void testRangePastEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/api/export").header("Range", "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    public void testTomcatSendsLargeFilesWithSendfile() throws Exception {
+        Path file = Files.write(directory.resolve("large.xlsx"), new byte[100_000]);
+        when(exportCacheService.getOrGenerate(any())).thenReturn(new CachedExport("large", file, 100_000, "data.xlsx"));
+
+        mockMvc.perform(get("/api/export").header("Range", "bytes=1000-")
+                        .requestAttr(FileDownloads.SENDFILE_SUPPORT, true))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Length", "99000"))
+                .andExpect(request().attribute(FileDownloads.SENDFILE_FILENAME, file.toAbsolutePath().toString()))
+                .andExpect(request().attribute(FileDownloads.SENDFILE_START, 1000L))
+                .andExpect(request().attribute(FileDownloads.SENDFILE_END, 100_000L))
+                .andExpect(content().bytes(new byte[0]));
+    }
+}
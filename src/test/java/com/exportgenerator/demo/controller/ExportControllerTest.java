@@ -1,6 +1,10 @@
 package com.exportgenerator.demo.controller;
 
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.model.ExportSelection;
+import com.exportgenerator.demo.model.ZipCompression;
 import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,10 +16,17 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ExportController.class)
@@ -27,6 +38,9 @@ public class ExportControllerTest {
     @MockBean
     private ExcelExportService excelExportService;
 
+    @MockBean
+    private ExportBundleService exportBundleService;
+
     @Autowired
     private WebApplicationContext webApplicationContext;
 
@@ -50,4 +64,55 @@ public class ExportControllerTest {
         mockMvc.perform(get("/api/export"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void testExportPassesRowCount() throws Exception {
+        mockMvc.perform(get("/api/export").param("rows", "250000"))
+                .andExpect(status().isOk());
+
+        verify(exportBundleService).export(eq(new ExportRequest(250000)), any());
+    }
+
+    @Test
+    public void testExportPassesCompression() throws Exception {
+        mockMvc.perform(get("/api/export").param("rows", "1000").param("compression", "Fast"))
+                .andExpect(status().isOk());
+
+        verify(exportBundleService).export(eq(new ExportRequest(1000).withCompression(ZipCompression.FAST)), any());
+
+        mockMvc.perform(get("/api/export").param("compression", "zstd"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportPassesSelection() throws Exception {
+        mockMvc.perform(get("/api/export").param("rows", "1000").param("sheets", "3,1")
+                        .param("fromRow", "101").param("toRow", "201"))
+                .andExpect(status().isOk());
+
+        verify(exportBundleService).export(eq(new ExportRequest(1000)
+                .withSelection(ExportSelection.of(List.of(1, 3), 101, 201))), any());
+
+        mockMvc.perform(get("/api/export").param("fromRow", "10").param("toRow", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportRejectsRowCountOutOfRange() throws Exception {
+        doThrow(new IllegalArgumentException("rows must be between 1 and 50000000"))
+                .when(exportBundleService).export(eq(new ExportRequest(0)), any());
+
+        mockMvc.perform(get("/api/export").param("rows", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportRejectedWhenCapacityExhausted() throws Exception {
+        doThrow(new RejectedExecutionException("Export queue is full"))
+                .when(exportBundleService).export(any(), any());
+
+        mockMvc.perform(get("/api/export"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+    }
 }
@@ -0,0 +1,144 @@
+package com.exportgenerator.demo.controller;
+
+import com.exportgenerator.demo.model.ExportJob;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExportJobController.class)
+public class ExportJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        ExportJob job = new ExportJob("job-1", "data.xlsx", directory.resolve("job-1.part"), 5, 100000, Instant.now());
+        when(exportJobService.submit(any())).thenReturn(job);
+
+        mockMvc.perform(post("/api/exports"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/exports/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.state").value("QUEUED"))
+                .andExpect(jsonPath("$.totalRows").value(100000));
+    }
+
+    @Test
+    public void testSubmitWhenQueueIsFull() throws Exception {
+        when(exportJobService.submit(any())).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/exports"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    public void testStatus() throws Exception {
+        ExportJob job = new ExportJob("job-1", "data.xlsx", directory.resolve("job-1.part"), 5, 100000, Instant.now());
+        job.markRunning();
+        job.updateRowsWritten(0, 20000);
+        job.updateRowsWritten(1, 3000);
+        when(exportJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/exports/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.rowsWrittenPerSheet[1]").value(3000))
+                .andExpect(jsonPath("$.rowsWritten").value(23000));
+    }
+
+    @Test
+    public void testStatusOfUnknownJob() throws Exception {
+        when(exportJobService.find("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/exports/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ExportJob job = new ExportJob("job-1", "data.xlsx", directory.resolve("job-1.part"), 5, 100000, Instant.now());
+        when(exportJobService.cancel("job-1")).thenReturn(Optional.of(job));
+        when(exportJobService.cancel("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/exports/job-1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"));
+        mockMvc.perform(delete("/api/exports/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDownloadBeforeCompletion() throws Exception {
+        ExportJob job = new ExportJob("job-1", "data.xlsx", directory.resolve("job-1.part"), 5, 100000, Instant.now());
+        when(exportJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/exports/job-1/file"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        Path file = Files.write(directory.resolve("job-1.part"), new byte[] { 4, 5, 6 });
+        ExportJob job = new ExportJob("job-1", "data.xlsx", file, 5, 100000, Instant.now());
+        job.markCompleted(Instant.now());
+        when(exportJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/exports/job-1/file"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=data.xlsx"))
+                .andExpect(content().bytes(new byte[] { 4, 5, 6 }));
+    }
+
+    @Test
+    public void testDownloadResumesFromRange() throws Exception {
+        Path file = Files.write(directory.resolve("job-1.part"), new byte[] { 4, 5, 6, 7, 8 });
+        ExportJob job = new ExportJob("job-1", "data.xlsx", file, 5, 100000, Instant.now());
+        job.markCompleted(Instant.now());
+        when(exportJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/exports/job-1/file").header("Range", "bytes=3-").header("If-Range", "\"job-1\""))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("ETag", "\"job-1\""))
+                .andExpect(header().string("Content-Range", "bytes 3-4/5"))
+                .andExpect(content().bytes(new byte[] { 7, 8 }));
+    }
+}
@@ -0,0 +1,134 @@
+package com.exportgenerator.demo.filters;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtAuthenticationFilterTest {
+
+    private static final byte[] SECRET = "mySecretKeymySecretKeymySecretKey12345".getBytes(StandardCharsets.UTF_8);
+
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testRepeatedTokenIsServedFromCache() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(10, Duration.ofMinutes(5), clock);
+        String token = token("alice", SECRET, clock.instant().plus(Duration.ofHours(1)));
+
+        assertEquals("alice", authenticate(filter, token));
+        assertEquals("alice", authenticate(filter, token));
+        assertEquals(1, filter.cachedTokens());
+    }
+
+    @Test
+    public void testInvalidSignatureIsNotCached() {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(10, Duration.ofMinutes(5), clock);
+        String forged = token("mallory", "anotherSecretanotherSecretanotherSecret1".getBytes(StandardCharsets.UTF_8),
+                clock.instant().plus(Duration.ofHours(1)));
+
+        assertThrows(SignatureException.class, () -> authenticate(filter, forged));
+        assertThrows(SignatureException.class, () -> authenticate(filter, forged));
+        assertEquals(0, filter.cachedTokens());
+    }
+
+    @Test
+    public void testEntriesExpireAtTokenExpiryOrMaxAge() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, Duration.ofMinutes(5), clock);
+        cache.put("short", "alice", clock.instant().plus(Duration.ofMinutes(1)));
+        cache.put("no-exp", "bob", null);
+
+        clock.advance(Duration.ofMinutes(1));
+        assertNull(cache.get("short"));
+        assertEquals("bob", cache.get("no-exp"));
+
+        clock.advance(Duration.ofMinutes(4));
+        assertNull(cache.get("no-exp"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsEvicted() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, Duration.ofMinutes(5), clock);
+        cache.put("a", "alice", null);
+        cache.put("b", "bob", null);
+        cache.get("a");
+        cache.put("c", "carol", null);
+
+        assertEquals("alice", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("carol", cache.get("c"));
+    }
+
+    @Test
+    public void testDisabledCacheVerifiesEveryRequest() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(0, Duration.ofMinutes(5), clock);
+        String token = token("alice", SECRET, clock.instant().plus(Duration.ofHours(1)));
+
+        assertEquals("alice", authenticate(filter, token));
+        assertEquals(0, filter.cachedTokens());
+    }
+
+    private static String authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/export");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    private static String token(String subject, byte[] secret, Instant expiration) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(Date.from(expiration))
+                .signWith(Keys.hmacShaKeyFor(secret))
+                .compact();
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.exportgenerator.demo.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarExportServiceImplTest {
+
+    private final ColumnarExportServiceImpl columnarExportService = new ColumnarExportServiceImpl(64);
+
+    @Test
+    public void testWriteNdjsonMatchesExportLayout() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        columnarExportService.write(ColumnarFormat.NDJSON, 200, out);
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("}\n"));
+        String[] lines = text.split("\n");
+        assertEquals(200, lines.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        String date = LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_DATE);
+        for (int rowIndex = 1; rowIndex <= 200; rowIndex++) {
+            JsonNode row = objectMapper.readTree(lines[rowIndex - 1]);
+            assertEquals(ExcelExportServiceImpl.COLUMN_NAMES.length, row.size());
+            assertTrue(row.get("ID").isInt());
+            assertEquals(rowIndex, row.get("ID").intValue());
+            assertEquals("Name " + rowIndex, row.get("Name").textValue());
+            assertEquals(date, row.get("StartDate_J").textValue());
+            assertEquals(ExcelExportServiceImpl.POKEMON_NAMES.get((rowIndex - 1) % ExcelExportServiceImpl.POKEMON_NAMES.size()),
+                    row.get("PokemonName").textValue());
+            assertEquals("email" + rowIndex + "_4@example.com", row.get("Email_4").textValue());
+        }
+    }
+
+    @Test
+    public void testNdjsonIsGzipEncodedWhenAccepted() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        columnarExportService.export(ColumnarFormat.NDJSON, 50, request, response);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentType().startsWith("application/x-ndjson"));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        columnarExportService.write(ColumnarFormat.NDJSON, 50, plain);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testArrowStreamIsWrittenInBatches() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        columnarExportService.export(ColumnarFormat.ARROW, 150, request, response);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("application/vnd.apache.arrow.stream", response.getContentType());
+        ByteBuffer stream = ByteBuffer.wrap(response.getContentAsByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        int messages = 0;
+        while (true) {
+            assertEquals(-1, stream.getInt());
+            int metadataLength = stream.getInt();
+            if (metadataLength == 0) {
+                break;
+            }
+            ByteBuffer metadata = stream.slice().order(ByteOrder.LITTLE_ENDIAN);
+            int message = metadata.getInt(0);
+            int vtable = message - metadata.getInt(message);
+            long bodyLength = metadata.getLong(message + metadata.getShort(vtable + 10));
+            stream.position(stream.position() + metadataLength + (int) bodyLength);
+            messages++;
+        }
+        assertFalse(stream.hasRemaining());
+        assertEquals(4, messages, "a schema and batches of 64, 64 and 22 rows");
+    }
+
+    @Test
+    public void testExportRejectsRowCountOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> columnarExportService.export(ColumnarFormat.ARROW, 0,
+                new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.exportgenerator.demo.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DelimitedExportServiceImplTest {
+
+    private final DelimitedExportServiceImpl delimitedExportService = new DelimitedExportServiceImpl();
+
+    @Test
+    public void testWriteCsvMatchesExportLayout() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        delimitedExportService.write(DelimitedFormat.CSV, 200, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(201, lines.length);
+        assertEquals(String.join(",", ExcelExportServiceImpl.COLUMN_NAMES), lines[0]);
+        for (int rowIndex = 1; rowIndex <= 200; rowIndex++) {
+            assertEquals(String.join(",", expectedRow(rowIndex)), lines[rowIndex]);
+        }
+    }
+
+    @Test
+    public void testWriteTsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        delimitedExportService.write(DelimitedFormat.TSV, 3, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(String.join("\t", expectedRow(3)), lines[3]);
+    }
+
+    @Test
+    public void testExportIsGzipEncodedWhenAccepted() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delimitedExportService.export(DelimitedFormat.CSV, 50, request, response);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        delimitedExportService.write(DelimitedFormat.CSV, 50, plain);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testExportIsPlainWithoutAcceptEncoding() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delimitedExportService.export(DelimitedFormat.TSV, 5, new MockHttpServletRequest(), response);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentType().startsWith("text/tab-separated-values"));
+        assertEquals(6, response.getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void testExportRejectsRowCountOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> delimitedExportService.export(DelimitedFormat.CSV, 0,
+                new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(DelimitedExportServiceImpl.acceptsGzip("gzip"));
+        assertTrue(DelimitedExportServiceImpl.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(DelimitedExportServiceImpl.acceptsGzip("*"));
+        assertFalse(DelimitedExportServiceImpl.acceptsGzip(null));
+        assertFalse(DelimitedExportServiceImpl.acceptsGzip("br, deflate"));
+        assertFalse(DelimitedExportServiceImpl.acceptsGzip("gzip;q=0"));
+    }
+
+    @Test
+    public void testFieldQuoting() {
+        assertEquals("\"a,b\"", DelimitedFormat.CSV.field("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", DelimitedFormat.CSV.field("say \"hi\""));
+        assertEquals("Mr. Mime", DelimitedFormat.CSV.field("Mr. Mime"));
+        assertEquals("a b", DelimitedFormat.TSV.field("a\tb"));
+    }
+
+    private static String[] expectedRow(int rowIndex) {
+        String date = LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_DATE);
+        List<String> pokemonNames = ExcelExportServiceImpl.getPokemonNames();
+        String[] values = new String[ExcelExportServiceImpl.COLUMN_NAMES.length];
+        values[0] = String.valueOf(rowIndex);
+        values[1] = "Name " + rowIndex;
+        values[2] = "Value " + rowIndex;
+        for (int j = 0; j < 10; j++) {
+            values[3 + j] = date;
+        }
+        values[13] = pokemonNames.get((rowIndex - 1) % pokemonNames.size());
+        for (int j = 0; j < 4; j++) {
+            values[14 + j] = "email" + rowIndex + "_" + (j + 1) + "@example.com";
+        }
+        values[18] = "Country " + rowIndex;
+        values[19] = "City " + rowIndex;
+        values[20] = "State " + rowIndex;
+        values[21] = "Zipcode " + rowIndex;
+        for (int j = 0; j < 8; j++) {
+            values[22 + j] = "Misc " + rowIndex + "_" + (j + 1);
+        }
+        return values;
+    }
+}
@@ -1,25 +1,48 @@
 package com.exportgenerator.demo.services;
 
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.SheetSlice;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.poi.SpillManager;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -58,7 +81,7 @@ public class ExcelExportServiceImplTest {
 
     @Test
     public void testBuildExport() {
-        Workbook workbook = new SXSSFWorkbook();
+        Workbook workbook = new SXSSFWorkbook(-1);
         int rowsPerSheet = 20000;
         String[] sheetNames = { "Data_Sheet1", "Data_Sheet2", "Data_Sheet3", "Data_Sheet4", "Data_Sheet5" };
 
@@ -87,6 +110,205 @@ public class ExcelExportServiceImplTest {
         }
     }
 
+    @Test
+    public void testParallelBuildExportMatchesSequential() throws IOException {
+        String[] sheetNames = { "Data_Sheet1", "Data_Sheet2", "Data_Sheet3", "Data_Sheet4", "Data_Sheet5" };
+
+        excelExportService.setParallelism(1);
+        Map<String, byte[]> sequential = buildAndUnzip(500, sheetNames);
+
+        excelExportService.setParallelism(4);
+        Map<String, byte[]> parallel = buildAndUnzip(500, sheetNames);
+
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (Map.Entry<String, byte[]> entry : sequential.entrySet()) {
+            assertArrayEquals(entry.getValue(), parallel.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    private Map<String, byte[]> buildAndUnzip(int rowsPerSheet, String[] sheetNames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            excelExportService.buildExport(workbook, rowsPerSheet, sheetNames);
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return unzipWorkbookParts(out.toByteArray());
+    }
+
+    private static Map<String, byte[]> unzipWorkbookParts(byte[] xlsx) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(new ByteArrayInputStream(xlsx))) {
+            for (ArchiveEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                // docProps/core.xml carries a creation timestamp, so only workbook parts are compared
+                if (entry.getName().startsWith("xl/")) {
+                    entries.put(entry.getName(), zip.readAllBytes());
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void testWriteExportRecordsPhasesAndSpill() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        excelExportService.setExportMetrics(new ExportMetrics(registry));
+        excelExportService.setStreaming(false);
+
+        excelExportService.writeExport(new ByteArrayOutputStream(), 500, new String[] { "Data_Sheet1" });
+
+        for (String phase : List.of(ExportMetrics.PHASE_BUILD, ExportMetrics.PHASE_SPILL, ExportMetrics.PHASE_WRITE)) {
+            assertEquals(1, registry.get("export.phase").tags("engine", "poi", "phase", phase).timer().count());
+        }
+        assertTrue(registry.get("export.spill.bytes").tag("engine", "poi").counter().count() > 0);
+    }
+
+    @Test
+    public void testStreamingExportRecordsBuildAndWritePhases() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        excelExportService.setExportMetrics(new ExportMetrics(registry));
+
+        excelExportService.writeExport(new ByteArrayOutputStream(), 500, new String[] { "Data_Sheet1" });
+
+        for (String phase : List.of(ExportMetrics.PHASE_BUILD, ExportMetrics.PHASE_WRITE)) {
+            Timer timer = registry.get("export.phase").tags("engine", "poi", "phase", phase).timer();
+            assertEquals(1, timer.count());
+            assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0, phase);
+        }
+        assertNull(registry.find("export.phase").tags("phase", ExportMetrics.PHASE_SPILL).timer());
+    }
+
+    @Test
+    public void testSpillFilesAreDeletedWhenClientAborts(@TempDir Path spillDirectory) throws IOException {
+        excelExportService.setSpillManager(new SpillManager(spillDirectory, 10, false, 0, 0,
+                ExportMetrics.disabled()));
+        excelExportService.setStreaming(false);
+        OutputStream abortingClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> excelExportService.writeExport(abortingClient, 500,
+                new String[] { "Data_Sheet1", "Data_Sheet2" }));
+
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testStreamingExportMatchesSpilledExport() throws IOException {
+        String[] sheetNames = { "Data_Sheet1", "Data_Sheet2", "Data_Sheet3" };
+        excelExportService.setCellMode(CellMode.TYPED);
+
+        ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+        excelExportService.setStreaming(false);
+        excelExportService.writeExport(spilled, 500, sheetNames);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        excelExportService.setStreaming(true);
+        excelExportService.writeExport(streamed, 500, sheetNames);
+
+        Map<String, byte[]> expected = unzipWorkbookParts(spilled.toByteArray());
+        Map<String, byte[]> actual = unzipWorkbookParts(streamed.toByteArray());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    public void testParallelDeflateMatchesSerialDeflate() throws IOException {
+        ExportShard shard = new ExportShard(0, 0, SheetSlice.uniform(2000, new String[] { "Data_Sheet1" }),
+                ZipCompression.FAST);
+        DeflatePool deflatePool = new DeflatePool(2);
+        try {
+            for (boolean streaming : new boolean[] { true, false }) {
+                excelExportService.setStreaming(streaming);
+                excelExportService.setDeflatePool(DeflatePool.disabled());
+                ByteArrayOutputStream serial = new ByteArrayOutputStream();
+                excelExportService.exportTo(serial, shard, ExportProgressListener.NONE);
+
+                excelExportService.setDeflatePool(deflatePool);
+                ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+                excelExportService.exportTo(parallel, shard, ExportProgressListener.NONE);
+
+                Map<String, byte[]> expected = unzipWorkbookParts(serial.toByteArray());
+                Map<String, byte[]> actual = unzipWorkbookParts(parallel.toByteArray());
+                assertEquals(expected.keySet(), actual.keySet());
+                for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                    assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+                }
+                try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(parallel.toByteArray()))) {
+                    assertEquals(2000, workbook.getSheetAt(0).getLastRowNum());
+                }
+            }
+        } finally {
+            deflatePool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingExportStopsWhenClientDisconnects() {
+        Map<Integer, Integer> progress = new TreeMap<>();
+        OutputStream disconnectingClient = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written += len;
+                if (written > 256 * 1024) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        assertThrows(IOException.class, () -> excelExportService.writeExport(disconnectingClient,
+                SheetSlice.uniform(20000, new String[] { "Data_Sheet1", "Data_Sheet2" }), progress::put));
+
+        assertEquals(Set.of(0), progress.keySet());
+        assertTrue(progress.get(0) < 20000, progress.toString());
+    }
+
+    @Test
+    public void testCancelledExportStopsAtNextCheckpoint() {
+        excelExportService.setStreaming(false);
+        excelExportService.setParallelism(2);
+        AtomicInteger rows = new AtomicInteger();
+        ExportProgressListener listener = ExportCancellation.none()
+                .orWhen(() -> rows.get() >= 3 * ExcelExportServiceImpl.PROGRESS_INTERVAL)
+                .guard((sheetIndex, rowsWritten) -> rows.accumulateAndGet(rowsWritten, Math::max));
+
+        ExportAbortedException e = assertThrows(ExportAbortedException.class,
+                () -> excelExportService.writeExport(new ByteArrayOutputStream(),
+                        SheetSlice.uniform(20000, new String[] { "Data_Sheet1", "Data_Sheet2" }), listener));
+
+        assertEquals(ExportAbortedException.Reason.CANCELLED, e.getReason());
+        assertTrue(rows.get() <= 4 * ExcelExportServiceImpl.PROGRESS_INTERVAL, rows.toString());
+    }
+
+    @Test
+    public void testCancelledStreamingExportStopsAtNextCheckpoint() {
+        AtomicInteger rows = new AtomicInteger();
+        ExportProgressListener listener = ExportCancellation.none()
+                .orWhen(() -> rows.get() >= 3 * ExcelExportServiceImpl.PROGRESS_INTERVAL)
+                .guard((sheetIndex, rowsWritten) -> rows.accumulateAndGet(rowsWritten, Math::max));
+
+        ExportAbortedException e = assertThrows(ExportAbortedException.class,
+                () -> excelExportService.writeExport(new ByteArrayOutputStream(),
+                        SheetSlice.uniform(20000, new String[] { "Data_Sheet1", "Data_Sheet2" }), listener));
+
+        assertEquals(ExportAbortedException.Reason.CANCELLED, e.getReason());
+        assertTrue(rows.get() <= 4 * ExcelExportServiceImpl.PROGRESS_INTERVAL, rows.toString());
+    }
+
     @Test
     public void testCreateHeaderRow() {
         Workbook workbook = new SXSSFWorkbook();
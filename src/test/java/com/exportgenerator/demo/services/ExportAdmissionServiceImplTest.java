@@ -0,0 +1,156 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService.Permit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportAdmissionServiceImplTest {
+
+    private static final ExportCost HALF = new ExportCost(50, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExportsWithinBudgetAreAdmittedImmediately() {
+        ExportAdmissionServiceImpl admission = admission(Duration.ZERO, 10);
+
+        Permit first = admission.acquire("alice", HALF);
+        Permit second = admission.acquire("bob", new ExportCost(50, 1000));
+        assertEquals(2, admission.running());
+
+        assertThrows(RejectedExecutionException.class, () -> admission.acquire("carol", new ExportCost(1, 0)));
+        assertEquals(1, registry.get("export.admission.rejected").tag("reason", "queue_full").counter().count());
+
+        first.close();
+        first.close();
+        second.close();
+        assertEquals(0, admission.running());
+    }
+
+    @Test
+    public void testOversizedExportRunsAlone() throws Exception {
+        ExportAdmissionServiceImpl admission = admission(Duration.ofSeconds(5), 10);
+
+        Permit small = admission.acquire("alice", HALF);
+        Future<Permit> huge = executor.submit(() -> admission.acquire("bob", new ExportCost(10_000, 0)));
+        awaitQueued(admission, 1);
+
+        small.close();
+        huge.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, admission.running());
+    }
+
+    @Test
+    public void testQueuedExportsAreServedRoundRobinByOwner() throws Exception {
+        ExportAdmissionServiceImpl admission = admission(Duration.ofSeconds(5), 10);
+        Permit first = admission.acquire("alice", HALF);
+        Permit second = admission.acquire("alice", HALF);
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        BlockingQueue<Permit> permits = new LinkedBlockingQueue<>();
+        String[] owners = {"alice", "alice", "alice", "bob"};
+        for (int i = 0; i < owners.length; i++) {
+            String owner = owners[i];
+            String label = owner + i;
+            executor.submit(() -> {
+                Permit permit = admission.acquire(owner, HALF);
+                order.add(label);
+                permits.add(permit);
+                return null;
+            });
+            awaitQueued(admission, i + 1);
+        }
+
+        // wait for each admitted export to record itself before freeing more budget
+        first.close();
+        Permit next = permits.poll(5, TimeUnit.SECONDS);
+        second.close();
+        for (int i = 0; i < owners.length; i++) {
+            next.close();
+            next = i + 1 < owners.length ? permits.poll(5, TimeUnit.SECONDS) : null;
+        }
+
+        assertEquals("alice0", order.get(0));
+        assertTrue(order.indexOf("bob3") < order.indexOf("alice2"), order.toString());
+        assertEquals(owners.length, registry.get("export.admission.wait").timer().count());
+    }
+
+    @Test
+    public void testQueuedExportTimesOut() throws Exception {
+        ExportAdmissionServiceImpl admission = admission(Duration.ofMillis(50), 10);
+        Permit running = admission.acquire("alice", new ExportCost(100, 0));
+
+        assertThrows(RejectedExecutionException.class, () -> admission.acquire("bob", HALF));
+        assertEquals(0, admission.queued());
+        assertEquals(1, registry.get("export.admission.rejected").tag("reason", "timeout").counter().count());
+
+        running.close();
+        admission.acquire("bob", HALF).close();
+    }
+
+    @Test
+    public void testRetainReturnsPartOfTheBudget() throws Exception {
+        ExportAdmissionServiceImpl admission = admission(Duration.ofSeconds(5), 10);
+        Permit downloading = admission.acquire("alice", new ExportCost(100, 300));
+        Future<Permit> waiting = executor.submit(() -> admission.acquire("bob", new ExportCost(100, 600)));
+        awaitQueued(admission, 1);
+
+        downloading.retain(new ExportCost(0, 400));
+        Permit admitted = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(2, admission.running());
+
+        // the kept disk budget stays counted until the permit is closed
+        Future<Permit> blocked = executor.submit(() -> admission.acquire("carol", new ExportCost(0, 200)));
+        awaitQueued(admission, 1);
+        downloading.close();
+        downloading.retain(new ExportCost(0, 0));
+        blocked.get(5, TimeUnit.SECONDS).close();
+        admitted.close();
+        assertEquals(0, admission.running());
+    }
+
+    @Test
+    public void testDisabledAdmissionIgnoresBudget() {
+        ExportAdmissionServiceImpl admission = new ExportAdmissionServiceImpl(false, 100, 100, Duration.ZERO, 0,
+                new ExportMetrics(registry));
+
+        admission.acquire("alice", new ExportCost(1000, 1000));
+        admission.acquire("alice", new ExportCost(1000, 1000));
+        assertEquals(0, admission.running());
+    }
+
+    private ExportAdmissionServiceImpl admission(Duration maxWait, int maxQueued) {
+        return new ExportAdmissionServiceImpl(true, 100, 1000, maxWait, maxQueued, new ExportMetrics(registry));
+    }
+
+    private static void awaitQueued(ExportAdmissionServiceImpl admission, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admission.queued() < queued) {
+            assertTrue(System.nanoTime() < deadline, "export was not queued");
+            Thread.sleep(5);
+        }
+    }
+}
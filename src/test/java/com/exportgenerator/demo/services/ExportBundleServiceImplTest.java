@@ -0,0 +1,333 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportCost;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.model.ExportSelection;
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.SheetSlice;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ExportBundleServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testPlanSplitsRowsIntoSheetsAndWorkbooks() {
+        ExportPlan plan = ExportPlan.of(250, 40, 100);
+
+        assertEquals(7, plan.sheetCount());
+        assertEquals(4, plan.shards().size());
+        assertTrue(plan.isBundle());
+
+        List<SheetSlice> sheets = new ArrayList<>();
+        plan.shards().forEach(shard -> sheets.addAll(shard.sheets()));
+        int expectedFirst = 1;
+        for (int i = 0; i < sheets.size(); i++) {
+            assertEquals("Data_Sheet" + (i + 1), sheets.get(i).name());
+            assertEquals(expectedFirst, sheets.get(i).firstRowIndex());
+            expectedFirst += sheets.get(i).rowCount();
+        }
+        assertEquals(251, expectedFirst);
+        assertEquals(10, sheets.get(6).rowCount());
+        assertEquals(List.of(0, 2, 4, 6), plan.shards().stream().map(ExportShard::firstSheetIndex).toList());
+    }
+
+    @Test
+    public void testSelectionKeepsRowIndexesOfSelectedSheets() {
+        ExportPlan plan = ExportPlan.of(250, 40, 100).select(ExportSelection.of(List.of(5, 2), null, null));
+
+        assertEquals(80, plan.totalRows());
+        assertEquals(2, plan.shards().size());
+        assertEquals(List.of(new SheetSlice("Data_Sheet2", 41, 40)), plan.shards().get(0).sheets());
+        assertEquals(List.of(new SheetSlice("Data_Sheet5", 161, 40)), plan.shards().get(1).sheets());
+        assertEquals(List.of(0, 1), plan.shards().stream().map(ExportShard::index).toList());
+        assertEquals(List.of(0, 1), plan.shards().stream().map(ExportShard::firstSheetIndex).toList());
+        assertNotEquals(ExportPlan.of(250, 40, 100).describe(), plan.describe());
+    }
+
+    @Test
+    public void testSelectionNarrowsSheetsToRowRange() {
+        ExportPlan plan = ExportPlan.of(250, 40, 100).select(ExportSelection.of(null, 100, 130));
+
+        assertEquals(30, plan.totalRows());
+        assertFalse(plan.isBundle());
+        assertEquals(List.of(new SheetSlice("Data_Sheet3", 100, 21), new SheetSlice("Data_Sheet4", 121, 9)),
+                plan.shards().get(0).sheets());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ExportPlan.of(250, 40, 100).select(ExportSelection.of(List.of(8), null, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExportPlan.of(250, 40, 100).select(ExportSelection.of(List.of(1), 41, null)));
+        assertThrows(IllegalArgumentException.class, () -> ExportSelection.of(null, 0, 10));
+    }
+
+    @Test
+    public void testSelectedRangeIsWrittenFromItsFirstRow() throws IOException {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 2);
+        ExportPlan plan = service.plan(new ExportRequest(250).withSelection(ExportSelection.of(null, 100, 130)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(plan, out, ExportProgressListener.NONE);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("Data_Sheet3", workbook.getSheetAt(0).getSheetName());
+            assertEquals(100, (int) workbook.getSheetAt(0).getRow(1).getCell(0).getNumericCellValue());
+            Sheet last = workbook.getSheetAt(1);
+            assertEquals(129, (int) last.getRow(last.getLastRowNum()).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    public void testDefaultPlanMatchesFixedLayout() {
+        ExportBundleServiceImpl service = new ExportBundleServiceImpl(new ExcelExportServiceImpl(),
+                ExportMetrics.disabled(), 20000, 5_000_000, 2, 50_000_000, directory);
+
+        ExportPlan plan = service.plan(ExportRequest.defaults());
+
+        assertFalse(plan.isBundle());
+        assertEquals(SheetSlice.uniform(20000, ExcelExportServiceImpl.SHEET_NAMES), plan.shards().get(0).sheets());
+    }
+
+    @Test
+    public void testRowsPerSheetIsCappedAtSheetLimit() {
+        ExportBundleServiceImpl service = new ExportBundleServiceImpl(new ExcelExportServiceImpl(),
+                ExportMetrics.disabled(), 5_000_000, 50_000_000, 2, 50_000_000, directory);
+
+        ExportPlan plan = service.plan(new ExportRequest(3_000_000));
+
+        assertEquals(ExcelExportServiceImpl.MAX_ROWS_PER_SHEET, plan.rowsPerSheet());
+        assertEquals(3, plan.sheetCount());
+    }
+
+    @Test
+    public void testPlanRejectsRowCountOutOfRange() {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 2);
+
+        assertThrows(IllegalArgumentException.class, () -> service.plan(new ExportRequest(0)));
+        assertThrows(IllegalArgumentException.class, () -> service.plan(new ExportRequest(1001)));
+    }
+
+    @Test
+    public void testSingleWorkbookIsWrittenDirectly() throws IOException {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 2);
+        ExportPlan plan = service.plan(new ExportRequest(80));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(plan, out, ExportProgressListener.NONE);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            assertEquals(41, (int) workbook.getSheetAt(1).getRow(1).getCell(0).getNumericCellValue());
+        }
+        assertTrue(service.fileName(plan, LocalDateTime.now()).endsWith(".xlsx"));
+    }
+
+    @Test
+    public void testBundleContainsContinuousWorkbooks() throws IOException {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 3);
+        ExportPlan plan = service.plan(new ExportRequest(250));
+        Map<Integer, Integer> progress = new ConcurrentHashMap<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(plan, out, progress::put);
+
+        List<String> entryNames = new ArrayList<>();
+        int expectedId = 1;
+        int sheetNumber = 1;
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ArchiveEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+                try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(zip.readAllBytes()))) {
+                    for (Sheet sheet : workbook) {
+                        assertEquals("Data_Sheet" + sheetNumber++, sheet.getSheetName());
+                        for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                            assertEquals(expectedId++, (int) sheet.getRow(r).getCell(0).getNumericCellValue());
+                        }
+                    }
+                }
+            }
+        }
+
+        assertEquals(List.of("data_1.xlsx", "data_2.xlsx", "data_3.xlsx", "data_4.xlsx"), entryNames);
+        assertEquals(251, expectedId);
+        assertEquals(7, progress.size());
+        assertEquals(10, progress.get(6));
+        assertTrue(service.fileName(plan, LocalDateTime.now()).endsWith(".zip"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testFailedWorkbookRemovesTemporaryFiles() throws IOException {
+        ExcelExportService failing = mock(ExcelExportService.class);
+        when(failing.engine()).thenReturn("poi");
+        doAnswer(invocation -> {
+            ExportShard shard = invocation.getArgument(1);
+            if (shard.index() == 1) {
+                throw new IOException("disk full");
+            }
+            invocation.<OutputStream>getArgument(0).write(new byte[16]);
+            return null;
+        }).when(failing).exportTo(any(), any(ExportShard.class), any());
+        ExportBundleServiceImpl service = service(failing, 2);
+
+        IOException e = assertThrows(IOException.class, () -> service.write(service.plan(new ExportRequest(250)),
+                new ByteArrayOutputStream(), ExportProgressListener.NONE));
+
+        assertEquals("disk full", e.getMessage());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testBundleCostCountsConcurrentWorkbooks() {
+        ExcelExportServiceImpl excelExportService = new ExcelExportServiceImpl();
+        ExportBundleServiceImpl service = service(excelExportService, 2);
+
+        ExportPlan single = service.plan(new ExportRequest(80));
+        assertEquals(excelExportService.estimateCost(single.shards().get(0)), service.estimateCost(single));
+
+        ExportPlan bundle = service.plan(new ExportRequest(250));
+        ExportCost shardCost = excelExportService.estimateCost(bundle.shards().get(0));
+        ExportCost cost = service.estimateCost(bundle);
+        assertEquals(2 * shardCost.memoryBytes(), cost.memoryBytes());
+        assertEquals(2 * shardCost.diskBytes() + 250 * ExportBundleServiceImpl.WORKBOOK_BYTES_PER_ROW,
+                cost.diskBytes());
+    }
+
+    @Test
+    public void testSpooledExportIsGeneratedOnPoolAndCopied() throws IOException {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 2);
+        GenerationPool generationPool = new GenerationPool(1);
+        service.setGenerationPool(generationPool);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            service.export(new ExportRequest(250), response);
+        } finally {
+            generationPool.shutdown();
+        }
+
+        assertEquals("application/zip", response.getContentType());
+        assertEquals(response.getContentAsByteArray().length, response.getContentLengthLong());
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(
+                new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("data_1.xlsx", zip.getNextEntry().getName());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testSpooledExportKeepsDiskBudgetForTheSpoolFile() throws IOException {
+        ExportBundleServiceImpl service = service(new ExcelExportServiceImpl(), 2);
+        ExportAdmissionService.Permit permit = mock(ExportAdmissionService.Permit.class);
+        service.setExportAdmissionService((owner, cost) -> permit);
+        GenerationPool generationPool = new GenerationPool(1);
+        service.setGenerationPool(generationPool);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            service.export(new ExportRequest(250), response);
+        } finally {
+            generationPool.shutdown();
+        }
+
+        InOrder order = inOrder(permit);
+        order.verify(permit).retain(new ExportCost(0, response.getContentAsByteArray().length));
+        order.verify(permit).close();
+    }
+
+    @Test
+    public void testSpooledExportStopsGenerationWhenClientDisconnects() throws Exception {
+        CountDownLatch stopped = new CountDownLatch(1);
+        ExcelExportService endless = mock(ExcelExportService.class);
+        when(endless.engine()).thenReturn("poi");
+        when(endless.estimateCost(any())).thenReturn(ExportCost.NONE);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            ExportProgressListener listener = invocation.getArgument(2);
+            try {
+                for (int rows = 1; ; rows++) {
+                    out.write(new byte[4096]);
+                    listener.rowsWritten(0, rows);
+                }
+            } finally {
+                stopped.countDown();
+            }
+        }).when(endless).exportTo(any(), any(ExportShard.class), any());
+        ExportBundleServiceImpl service = service(endless, 1);
+        GenerationPool generationPool = new GenerationPool(1);
+        service.setGenerationPool(generationPool);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset by peer");
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // No-op
+            }
+        });
+        try {
+            assertThrows(IOException.class, () -> service.export(new ExportRequest(80), response));
+            assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        } finally {
+            generationPool.shutdown();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private ExportBundleServiceImpl service(ExcelExportService excelExportService, int parallelism) {
+        return new ExportBundleServiceImpl(excelExportService, ExportMetrics.disabled(), 40, 100, parallelism, 1000,
+                directory);
+    }
+}
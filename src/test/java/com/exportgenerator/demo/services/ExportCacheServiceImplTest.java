@@ -0,0 +1,198 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.CachedExport;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class ExportCacheServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private final ExportBundleService exportBundleService = mock(ExportBundleService.class);
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private final ExportRequest request = new ExportRequest(100);
+
+    private final ExportPlan plan = ExportPlan.of(100, 20, 1000);
+
+    @BeforeEach
+    public void setUp() {
+        when(exportBundleService.plan(request)).thenReturn(plan);
+    }
+
+    @Test
+    public void testHitDoesNotRegenerate() throws Exception {
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        writesBytes(100);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        CachedExport first = cache.getOrGenerate(request);
+        CachedExport second = cache.getOrGenerate(request);
+
+        assertEquals(first, second);
+        assertEquals(100, Files.size(second.file()));
+        verify(exportBundleService, times(1)).write(any(), any(), any());
+    }
+
+    @Test
+    public void testKeyIncludesVariantAndDate() throws Exception {
+        when(exportBundleService.variant()).thenReturn("poi/1", "ooxml/1");
+        writesBytes(100);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        CachedExport poi = cache.getOrGenerate(request);
+        CachedExport ooxml = cache.getOrGenerate(request);
+
+        assertNotEquals(poi.etag(), ooxml.etag());
+        assertEquals(ExportCacheServiceImpl.hash("poi/1/" + plan.describe() + "/2025-01-01"), poi.hash());
+    }
+
+    @Test
+    public void testKeyIncludesLayout() throws Exception {
+        ExportRequest larger = new ExportRequest(200);
+        when(exportBundleService.plan(larger)).thenReturn(ExportPlan.of(200, 20, 1000));
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        writesBytes(100);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        assertNotEquals(cache.getOrGenerate(request).etag(), cache.getOrGenerate(larger).etag());
+    }
+
+    @Test
+    public void testBundlesAreCachedAsZip() throws Exception {
+        ExportRequest bundled = new ExportRequest(300);
+        when(exportBundleService.plan(bundled)).thenReturn(ExportPlan.of(300, 20, 100));
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        writesBytes(100);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        CachedExport bundle = cache.getOrGenerate(bundled);
+
+        assertTrue(bundle.file().toString().endsWith(".zip"));
+        assertTrue(bundle.fileName().endsWith(".zip"));
+        assertEquals(bundle.file(),
+                new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock).getOrGenerate(bundled).file());
+    }
+
+    @Test
+    public void testConcurrentMissesGenerateOnce() throws Exception {
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            invocation.<OutputStream>getArgument(1).write(new byte[10]);
+            return null;
+        }).when(exportBundleService).write(any(), any(), any());
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CachedExport>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> cache.getOrGenerate(request)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            CachedExport expected = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<CachedExport> result : results) {
+                assertEquals(expected, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(exportBundleService, times(1)).write(any(), any(), any());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        when(exportBundleService.variant()).thenReturn("a", "b", "a", "c");
+        writesBytes(400);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 1000, clock);
+
+        CachedExport a = cache.getOrGenerate(request);
+        CachedExport b = cache.getOrGenerate(request);
+        cache.getOrGenerate(request); // touches a, so b becomes the eldest
+        CachedExport c = cache.getOrGenerate(request);
+
+        assertTrue(Files.exists(a.file()));
+        assertFalse(Files.exists(b.file()));
+        assertTrue(Files.exists(c.file()));
+        assertEquals(800, cache.totalBytes());
+    }
+
+    @Test
+    public void testExistingFilesAreIndexedOnStartup() throws Exception {
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        writesBytes(100);
+        CachedExport generated = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock)
+                .getOrGenerate(request);
+
+        ExportCacheServiceImpl restarted = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        assertEquals(generated.file(), restarted.getOrGenerate(request).file());
+        assertEquals(100, restarted.totalBytes());
+        verify(exportBundleService, times(1)).write(any(), any(), any());
+    }
+
+    @Test
+    public void testGenerationUsesTheDateInTheKey() throws Exception {
+        when(exportBundleService.variant()).thenReturn("poi/1");
+        writesBytes(100);
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        cache.getOrGenerate(request);
+
+        LocalDate today = LocalDate.of(2025, 1, 1);
+        verify(exportBundleService).write(argThat(generated -> generated.shards().stream()
+                .allMatch(shard -> today.equals(shard.exportDate()))), any(), any());
+    }
+
+    @Test
+    public void testStalePartFilesAreDeletedOnStartup() throws Exception {
+        Path stale = Files.createFile(directory.resolve("stale.part"));
+        Files.setLastModifiedTime(stale, FileTime.from(clock.instant().minusSeconds(60)));
+        Path current = Files.createFile(directory.resolve("current.part"));
+        Files.setLastModifiedTime(current, FileTime.from(clock.instant().plusSeconds(60)));
+
+        ExportCacheServiceImpl cache = new ExportCacheServiceImpl(exportBundleService, directory, 10_000, clock);
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(current));
+        assertEquals(0, cache.totalBytes());
+    }
+
+    private void writesBytes(int size) throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(new byte[size]);
+            return null;
+        }).when(exportBundleService).write(any(), any(), any());
+    }
+}
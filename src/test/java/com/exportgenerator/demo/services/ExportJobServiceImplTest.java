@@ -0,0 +1,232 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportJob;
+import com.exportgenerator.demo.model.ExportPlan;
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportBundleService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ExportJobServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private final ExportBundleService exportBundleService = mock(ExportBundleService.class);
+
+    private final ExportRequest request = ExportRequest.defaults();
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    private ExportJobServiceImpl exportJobService;
+
+    @BeforeEach
+    public void setUp() {
+        when(exportBundleService.plan(request)).thenReturn(ExportPlan.of(100000, 20000, 5000000));
+        when(exportBundleService.fileName(any(), any())).thenReturn("data.xlsx");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (exportJobService != null) {
+            exportJobService.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmitCompletesJobAndReportsProgress() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            ExportProgressListener listener = invocation.getArgument(2);
+            out.write(new byte[] { 1, 2, 3 });
+            listener.rowsWritten(0, 20000);
+            listener.rowsWritten(4, 500);
+            return null;
+        }).when(exportBundleService).write(any(), any(), any());
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        ExportJob job = exportJobService.submit(request);
+        awaitState(job, ExportJob.State.COMPLETED);
+
+        assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(job.getFile()));
+        assertEquals(20000, job.toStatus().rowsWrittenPerSheet()[0]);
+        assertEquals(500, job.toStatus().rowsWrittenPerSheet()[4]);
+        assertEquals(20500, job.toStatus().rowsWritten());
+        assertEquals(100000, job.toStatus().totalRows());
+        assertEquals(5, job.toStatus().rowsWrittenPerSheet().length);
+        assertSame(job, exportJobService.find(job.getId()).orElseThrow());
+    }
+
+    @Test
+    public void testSubmitRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(exportBundleService).write(any(), any(), any());
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        ExportJob running = exportJobService.submit(request);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        ExportJob queued = exportJobService.submit(request);
+        assertEquals(1, exportJobService.queuedJobs());
+
+        assertThrows(RejectedExecutionException.class, () -> exportJobService.submit(request));
+
+        release.countDown();
+        awaitState(running, ExportJob.State.COMPLETED);
+        awaitState(queued, ExportJob.State.COMPLETED);
+    }
+
+    @Test
+    public void testFailedExportIsReportedAndFileRemoved() throws Exception {
+        doThrow(new IllegalStateException("boom")).when(exportBundleService).write(any(), any(), any());
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        ExportJob job = exportJobService.submit(request);
+        awaitState(job, ExportJob.State.FAILED);
+
+        assertEquals("boom", job.toStatus().error());
+        assertFalse(Files.exists(job.getFile()));
+    }
+
+    @Test
+    public void testCancelledJobStopsAtNextProgressReport() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            ExportProgressListener listener = invocation.getArgument(2);
+            out.write(new byte[] { 1, 2, 3 });
+            listener.rowsWritten(0, 5000);
+            started.countDown();
+            cancelled.await();
+            listener.rowsWritten(0, 10000);
+            fail("export continued after cancel");
+            return null;
+        }).when(exportBundleService).write(any(), any(), any());
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        ExportJob job = exportJobService.submit(request);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(job, exportJobService.cancel(job.getId()).orElseThrow());
+        cancelled.countDown();
+        awaitState(job, ExportJob.State.CANCELLED);
+
+        assertEquals(5000, job.toStatus().rowsWritten());
+        assertFalse(Files.exists(job.getFile()));
+        assertTrue(exportJobService.cancel("missing").isEmpty());
+    }
+
+    @Test
+    public void testCancelledJobOnStreamingEngineEndsCancelled() throws Exception {
+        ExportBundleServiceImpl bundleService = new ExportBundleServiceImpl(new ExcelExportServiceImpl(),
+                ExportMetrics.disabled(), 20000, 5000000, 1, 5000000, directory.resolve("shards"));
+        exportJobService = new ExportJobServiceImpl(bundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        ExportJob job = exportJobService.submit(ExportRequest.defaults());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.toStatus().rowsWritten() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        exportJobService.cancel(job.getId());
+        awaitState(job, ExportJob.State.CANCELLED);
+
+        assertNull(job.toStatus().error());
+        assertTrue(job.toStatus().rowsWritten() < ExportRequest.DEFAULT_TOTAL_ROWS);
+        assertFalse(Files.exists(job.getFile()));
+    }
+
+    @Test
+    public void testFinishedJobsExpireAfterTtl() throws Exception {
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofMinutes(10), directory, clock);
+
+        ExportJob job = exportJobService.submit(request);
+        awaitState(job, ExportJob.State.COMPLETED);
+        assertTrue(Files.exists(job.getFile()));
+
+        clock.advance(Duration.ofMinutes(5));
+        exportJobService.expireFinishedJobs();
+        assertTrue(exportJobService.find(job.getId()).isPresent());
+
+        clock.advance(Duration.ofMinutes(6));
+        exportJobService.expireFinishedJobs();
+        assertTrue(exportJobService.find(job.getId()).isEmpty());
+        assertFalse(Files.exists(job.getFile()));
+    }
+
+    @Test
+    public void testStartDeletesJobFilesLeftByEarlierProcesses() throws Exception {
+        Path stale = Files.createFile(directory.resolve("stale.part"));
+        Files.setLastModifiedTime(stale, FileTime.from(clock.instant().minus(Duration.ofDays(1))));
+        Path fresh = Files.createFile(directory.resolve("fresh.part"));
+        Files.setLastModifiedTime(fresh, FileTime.from(clock.instant().plus(Duration.ofSeconds(1))));
+        Path other = Files.createFile(directory.resolve("notes.txt"));
+        Files.setLastModifiedTime(other, FileTime.from(clock.instant().minus(Duration.ofDays(1))));
+        exportJobService = new ExportJobServiceImpl(exportBundleService, 1, 1, Duration.ofHours(1), directory, clock);
+
+        exportJobService.start();
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(other));
+    }
+
+    private static void awaitState(ExportJob job, ExportJob.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(state, job.getState());
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
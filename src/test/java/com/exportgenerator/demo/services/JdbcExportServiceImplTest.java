@@ -0,0 +1,170 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportRequest;
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportAdmissionService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class JdbcExportServiceImplTest {
+
+    private static final int ROWS = 2500;
+    private static final int ROWS_PER_SHEET = 1000;
+
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dataSource.setURL("jdbc:h2:mem:jdbc-export;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(64))");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items VALUES (?, ?)")) {
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, "Item " + i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE items");
+        }
+    }
+
+    @Test
+    public void testRowsPastTheSheetLimitStartANewSheet() throws IOException {
+        for (ExcelExportService engine : new ExcelExportService[] { new ExcelExportServiceImpl(),
+                new OoxmlExportServiceImpl() }) {
+            byte[] export = export(engine, "SELECT id, name FROM items ORDER BY id");
+
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(export))) {
+                assertEquals(3, workbook.getNumberOfSheets(), engine.engine());
+                int id = 0;
+                for (int sheetIndex = 0; sheetIndex < 3; sheetIndex++) {
+                    Sheet sheet = workbook.getSheetAt(sheetIndex);
+                    assertEquals("Data_Sheet" + (sheetIndex + 1), sheet.getSheetName());
+                    assertEquals("ID", sheet.getRow(0).getCell(0).getStringCellValue());
+                    assertEquals(Math.min(ROWS_PER_SHEET, ROWS - id), sheet.getLastRowNum(), engine.engine());
+                    for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+                        id++;
+                        assertEquals(id, (long) sheet.getRow(rowIndex).getCell(0).getNumericCellValue());
+                        assertEquals("Item " + id, sheet.getRow(rowIndex).getCell(1).getStringCellValue());
+                    }
+                }
+                assertEquals(ROWS, id);
+            }
+        }
+    }
+
+    @Test
+    public void testFullLastSheetAddsNoEmptySheet() throws IOException {
+        for (ExcelExportService engine : new ExcelExportService[] { new ExcelExportServiceImpl(),
+                new OoxmlExportServiceImpl() }) {
+            byte[] export = export(engine, "SELECT id FROM items WHERE id <= " + 2 * ROWS_PER_SHEET);
+
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(export))) {
+                assertEquals(2, workbook.getNumberOfSheets(), engine.engine());
+                assertEquals(ROWS_PER_SHEET, workbook.getSheetAt(1).getLastRowNum(), engine.engine());
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyResultWritesHeaderOnlySheet() throws IOException {
+        for (ExcelExportService engine : new ExcelExportService[] { new ExcelExportServiceImpl(),
+                new OoxmlExportServiceImpl() }) {
+            byte[] export = export(engine, "SELECT id FROM items WHERE id < 0");
+
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(export))) {
+                assertEquals(1, workbook.getNumberOfSheets(), engine.engine());
+                assertEquals(0, workbook.getSheetAt(0).getLastRowNum(), engine.engine());
+            }
+        }
+    }
+
+    @Test
+    public void testExportHoldsAdmissionPermitForItsOwner() throws IOException {
+        JdbcExportServiceImpl service = service(new OoxmlExportServiceImpl(), "SELECT id FROM items");
+        ExportAdmissionService admission = mock(ExportAdmissionService.class);
+        ExportAdmissionService.Permit permit = mock(ExportAdmissionService.Permit.class);
+        when(admission.acquire("alice", service.estimateCost())).thenReturn(permit);
+        service.setExportAdmissionService(admission);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportToExcel("alice", response(out));
+
+        assertTrue(out.size() > 0);
+        verify(permit).close();
+    }
+
+    @Test
+    public void testRejectedExportWritesNothing() throws IOException {
+        JdbcExportServiceImpl service = service(new OoxmlExportServiceImpl(), "SELECT id FROM items");
+        ExportAdmissionService admission = mock(ExportAdmissionService.class);
+        when(admission.acquire(any(), any())).thenThrow(new RejectedExecutionException("busy"));
+        service.setExportAdmissionService(admission);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        assertThrows(RejectedExecutionException.class, () -> service.exportToExcel("alice", response));
+        verifyNoInteractions(response);
+    }
+
+    @Test
+    public void testTimeoutStopsExportAtNextCheckpoint() {
+        for (ExcelExportService engine : new ExcelExportService[] { new ExcelExportServiceImpl(),
+                new OoxmlExportServiceImpl() }) {
+            JdbcExportServiceImpl service = service(engine, "SELECT id, name FROM items ORDER BY id");
+            service.setTimeout(Duration.ofNanos(1));
+
+            ExportAbortedException e = assertThrows(ExportAbortedException.class,
+                    () -> service.exportToExcel("alice", response(new ByteArrayOutputStream())));
+            assertEquals(ExportAbortedException.Reason.TIMEOUT, e.getReason(), engine.engine());
+        }
+    }
+
+    private byte[] export(ExcelExportService engine, String query) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service(engine, query).exportToExcel(ExportRequest.ANONYMOUS, response(out));
+        return out.toByteArray();
+    }
+
+    private JdbcExportServiceImpl service(ExcelExportService engine, String query) {
+        return new JdbcExportServiceImpl(engine, dataSource, ExportMetrics.disabled(), query, 100, ROWS_PER_SHEET);
+    }
+
+    private static HttpServletResponse response(ByteArrayOutputStream out) throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(out));
+        return response;
+    }
+}
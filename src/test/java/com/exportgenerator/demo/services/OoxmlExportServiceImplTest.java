@@ -0,0 +1,361 @@
+package com.exportgenerator.demo.services;
+
+import com.exportgenerator.demo.model.ExportShard;
+import com.exportgenerator.demo.model.SheetSlice;
+import com.exportgenerator.demo.model.ZipCompression;
+import com.exportgenerator.demo.services.io.DeflatePool;
+import com.exportgenerator.demo.services.rowsource.ExportRowSource;
+import com.exportgenerator.demo.services.schema.RowPlan;
+import com.exportgenerator.demo.services.serviceinterfaces.ExcelExportService;
+import com.exportgenerator.demo.services.serviceinterfaces.ExportProgressListener;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OoxmlExportServiceImplTest {
+
+    private final OoxmlExportServiceImpl ooxmlExportService = new OoxmlExportServiceImpl();
+
+    private final ExcelExportServiceImpl poiExportService = new ExcelExportServiceImpl();
+
+    @Test
+    public void testWriteExportMatchesPoiEngine() throws IOException {
+        int rowsPerSheet = 300;
+        String[] sheetNames = ExcelExportServiceImpl.SHEET_NAMES;
+
+        ByteArrayOutputStream poiOut = new ByteArrayOutputStream();
+        poiExportService.writeExport(poiOut, rowsPerSheet, sheetNames);
+
+        ByteArrayOutputStream ooxmlOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(ooxmlOut, rowsPerSheet, sheetNames);
+
+        assertWorkbooksEqual(poiOut.toByteArray(), ooxmlOut.toByteArray());
+    }
+
+    @Test
+    public void testTypedWriteExportMatchesPoiEngine() throws IOException {
+        int rowsPerSheet = 300;
+        String[] sheetNames = ExcelExportServiceImpl.SHEET_NAMES;
+
+        poiExportService.setCellMode(CellMode.TYPED);
+        ByteArrayOutputStream poiOut = new ByteArrayOutputStream();
+        poiExportService.writeExport(poiOut, rowsPerSheet, sheetNames);
+
+        ooxmlExportService.setCellMode(CellMode.TYPED);
+        ByteArrayOutputStream ooxmlOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(ooxmlOut, rowsPerSheet, sheetNames);
+
+        assertWorkbooksEqual(poiOut.toByteArray(), ooxmlOut.toByteArray());
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(ooxmlOut.toByteArray()))) {
+            Cell dateCell = workbook.getSheetAt(0).getRow(1).getCell(3);
+            assertTrue(DateUtil.isCellDateFormatted(dateCell));
+            assertEquals(LocalDate.now(ZoneOffset.UTC), dateCell.getLocalDateTimeCellValue().toLocalDate());
+        }
+    }
+
+    @Test
+    public void testShardExportDateFixesDateCells() throws IOException {
+        LocalDate exportDate = LocalDate.of(2020, 2, 29);
+        ExportShard shard = new ExportShard(0, 0, SheetSlice.uniform(10, new String[] { "Data_Sheet1" }), null,
+                exportDate);
+        for (boolean streaming : new boolean[] { true, false }) {
+            poiExportService.setStreaming(streaming);
+            assertShardDates(poiExportService, shard, exportDate);
+        }
+        assertShardDates(ooxmlExportService, shard, exportDate);
+    }
+
+    private static void assertShardDates(ExcelExportService engine, ExportShard shard, LocalDate exportDate)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.exportTo(out, shard, ExportProgressListener.NONE);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+                assertEquals(exportDate.toString(), sheet.getRow(rowIndex).getCell(3).getStringCellValue(),
+                        engine.engine());
+            }
+        }
+    }
+
+    @Test
+    public void testSharedStringsFallBackToInlineWhenFull() throws IOException {
+        int rowsPerSheet = 300;
+        String[] sheetNames = ExcelExportServiceImpl.SHEET_NAMES;
+
+        ByteArrayOutputStream inlineOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(inlineOut, rowsPerSheet, sheetNames);
+
+        ooxmlExportService.setCellMode(CellMode.TYPED);
+        ooxmlExportService.setSharedStringsMaxCardinality(10);
+        ByteArrayOutputStream typedOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(typedOut, rowsPerSheet, sheetNames);
+
+        try (Workbook inline = new XSSFWorkbook(new ByteArrayInputStream(inlineOut.toByteArray()));
+                Workbook typed = new XSSFWorkbook(new ByteArrayInputStream(typedOut.toByteArray()))) {
+            for (int rowIndex = 1; rowIndex <= rowsPerSheet; rowIndex++) {
+                assertEquals(inline.getSheetAt(0).getRow(rowIndex).getCell(13).getStringCellValue(),
+                        typed.getSheetAt(0).getRow(rowIndex).getCell(13).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void testTypedModeProducesSmallerFile() throws IOException {
+        int rowsPerSheet = 2000;
+        String[] sheetNames = ExcelExportServiceImpl.SHEET_NAMES;
+
+        ByteArrayOutputStream inlineOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(inlineOut, rowsPerSheet, sheetNames);
+
+        ooxmlExportService.setCellMode(CellMode.TYPED);
+        ByteArrayOutputStream typedOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(typedOut, rowsPerSheet, sheetNames);
+
+        assertTrue(typedOut.size() < inlineOut.size(),
+                "typed " + typedOut.size() + " bytes, inline " + inlineOut.size() + " bytes");
+    }
+
+    @Test
+    public void testCompressionLevelsTradeSizeForSpeed() throws IOException {
+        List<SheetSlice> sheets = SheetSlice.uniform(2000, ExcelExportServiceImpl.SHEET_NAMES);
+        ByteArrayOutputStream defaultOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(defaultOut, sheets, ExportProgressListener.NONE);
+
+        int previousSize = Integer.MAX_VALUE;
+        for (ZipCompression compression : List.of(ZipCompression.STORED, ZipCompression.FAST, ZipCompression.MAX)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ooxmlExportService.writeExport(out, sheets, compression, ExportProgressListener.NONE);
+
+            assertTrue(out.size() < previousSize, compression + " produced " + out.size() + " bytes");
+            previousSize = out.size();
+            assertPartsEqual(defaultOut.toByteArray(), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testParallelDeflateProducesSameParts() throws IOException {
+        List<SheetSlice> sheets = SheetSlice.uniform(3000, new String[] { "Data_Sheet1", "Data_Sheet2" });
+        ByteArrayOutputStream serialOut = new ByteArrayOutputStream();
+        ooxmlExportService.writeExport(serialOut, sheets, ExportProgressListener.NONE);
+
+        DeflatePool deflatePool = new DeflatePool(2);
+        try {
+            ooxmlExportService.setDeflatePool(deflatePool);
+            ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+            ooxmlExportService.writeExport(parallelOut, sheets, ExportProgressListener.NONE);
+
+            assertPartsEqual(serialOut.toByteArray(), parallelOut.toByteArray());
+            assertTrue(parallelOut.size() < serialOut.size() * 1.05,
+                    "parallel " + parallelOut.size() + " bytes, serial " + serialOut.size() + " bytes");
+            assertWorkbooksEqual(serialOut.toByteArray(), parallelOut.toByteArray());
+        } finally {
+            deflatePool.shutdown();
+        }
+    }
+
+    private static void assertPartsEqual(byte[] expectedZip, byte[] actualZip) {
+        Map<String, byte[]> expected = unzip(expectedZip);
+        Map<String, byte[]> actual = unzip(actualZip);
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, content) -> assertArrayEquals(content, actual.get(name), name));
+    }
+
+    /**
+     * Reads every entry of a zip; {@link ZipInputStream} checks each entry's
+     * CRC and sizes against its headers.
+     */
+    private static Map<String, byte[]> unzip(byte[] zip) {
+        Map<String, byte[]> entries = new TreeMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    private static void assertWorkbooksEqual(byte[] expectedBytes, byte[] actualBytes) throws IOException {
+        try (Workbook expected = new XSSFWorkbook(new ByteArrayInputStream(expectedBytes));
+                Workbook actual = new XSSFWorkbook(new ByteArrayInputStream(actualBytes))) {
+            assertEquals(expected.getNumberOfSheets(), actual.getNumberOfSheets());
+
+            for (int sheetIndex = 0; sheetIndex < expected.getNumberOfSheets(); sheetIndex++) {
+                Sheet expectedSheet = expected.getSheetAt(sheetIndex);
+                Sheet actualSheet = actual.getSheetAt(sheetIndex);
+                assertEquals(expectedSheet.getSheetName(), actualSheet.getSheetName());
+                assertEquals(expectedSheet.getLastRowNum(), actualSheet.getLastRowNum());
+
+                for (int rowIndex = 0; rowIndex <= expectedSheet.getLastRowNum(); rowIndex++) {
+                    Row expectedRow = expectedSheet.getRow(rowIndex);
+                    Row actualRow = actualSheet.getRow(rowIndex);
+                    assertNotNull(actualRow);
+                    assertEquals(expectedRow.getLastCellNum(), actualRow.getLastCellNum());
+
+                    for (int column = 0; column < expectedRow.getLastCellNum(); column++) {
+                        assertCellEquals(expectedRow.getCell(column), actualRow.getCell(column));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRowSourceExportMatchesSyntheticExport() throws IOException {
+        int rowsPerSheet = 100;
+        int rows = 250;
+
+        ByteArrayOutputStream poiOut = new ByteArrayOutputStream();
+        poiExportService.writeExport(poiOut, List.of(new SheetSlice("Data_Sheet1", 1, 100),
+                new SheetSlice("Data_Sheet2", 101, 100), new SheetSlice("Data_Sheet3", 201, 50)),
+                ExportProgressListener.NONE);
+
+        ByteArrayOutputStream ooxmlOut = new ByteArrayOutputStream();
+        try (SyntheticRowSource source = syntheticSource(rows)) {
+            ooxmlExportService.exportTo(ooxmlOut, source, rowsPerSheet, ExportProgressListener.NONE);
+        }
+
+        ByteArrayOutputStream poiSourceOut = new ByteArrayOutputStream();
+        try (SyntheticRowSource source = syntheticSource(rows)) {
+            poiExportService.exportTo(poiSourceOut, source, rowsPerSheet, ExportProgressListener.NONE);
+        }
+
+        assertWorkbooksEqual(poiOut.toByteArray(), ooxmlOut.toByteArray());
+        assertWorkbooksEqual(poiOut.toByteArray(), poiSourceOut.toByteArray());
+    }
+
+    private static SyntheticRowSource syntheticSource(int rows) {
+        return new SyntheticRowSource(ExcelExportServiceImpl.SCHEMA.compile(LocalDate.now(ZoneOffset.UTC)), rows);
+    }
+
+    @Test
+    public void testExportToExcel() throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(byteArrayOutputStream));
+
+        ooxmlExportService.exportToExcel(response);
+
+        verify(response, times(1)).getOutputStream();
+        assertTrue(byteArrayOutputStream.size() > 0);
+    }
+
+    private static void assertCellEquals(Cell expected, Cell actual) {
+        String reference = expected.getAddress().formatAsString();
+        assertNotNull(actual, reference);
+        assertEquals(expected.getCellType(), actual.getCellType(), reference);
+        if (expected.getCellType() == CellType.NUMERIC) {
+            assertEquals(expected.getNumericCellValue(), actual.getNumericCellValue(), reference);
+        } else {
+            assertEquals(expected.getStringCellValue(), actual.getStringCellValue(), reference);
+        }
+    }
+
+    /**
+     * Serves the synthetic rows through the row-source interface, so the
+     * generic path can be compared with the engines' own synthetic writers.
+     */
+    private static class SyntheticRowSource implements ExportRowSource {
+        private final RowPlan plan;
+        private final int rows;
+        private final StringBuilder text = new StringBuilder();
+        private int rowIndex;
+
+        SyntheticRowSource(RowPlan plan, int rows) {
+            this.plan = plan;
+            this.rows = rows;
+        }
+
+        @Override
+        public String[] columnNames() {
+            return plan.columnNames();
+        }
+
+        @Override
+        public boolean next() {
+            return ++rowIndex <= rows;
+        }
+
+        @Override
+        public boolean isNumeric(int column) {
+            return plan.isNumeric(column);
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            return false;
+        }
+
+        @Override
+        public long getLong(int column) {
+            return rowIndex;
+        }
+
+        @Override
+        public CharSequence getText(int column) {
+            return switch (plan.generator(column)) {
+                case EXPORT_DATE -> plan.isoDate();
+                case CYCLE -> plan.cycleValue(column, rowIndex);
+                default -> {
+                    text.setLength(0);
+                    plan.appendText(column, rowIndex, text);
+                    yield text;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+
+    // Helper class to mock ServletOutputStream
+    private static class DelegatingServletOutputStream extends jakarta.servlet.ServletOutputStream {
+        private final ByteArrayOutputStream outputStream;
+
+        public DelegatingServletOutputStream(ByteArrayOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) {
+            outputStream.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(jakarta.servlet.WriteListener writeListener) {
+            // No-op
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.exportgenerator.demo.services.arrow;
+
+import com.exportgenerator.demo.services.schema.ExportColumn;
+import com.exportgenerator.demo.services.schema.ExportSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrowStreamWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 15);
+
+    @Test
+    public void testWritesSchemaBatchesAndEndOfStream() throws IOException {
+        ExportSchema schema = new ExportSchema(List.of(
+                ExportColumn.rowIndex("ID"),
+                ExportColumn.indexedText("Email", "email", "@example.com"),
+                ExportColumn.exportDate("Date"),
+                ExportColumn.cycle("Colour", List.of("red", "grün", "blue"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ArrowStreamWriter writer = new ArrowStreamWriter(out, schema.compile(DATE));
+        writer.writeSchema();
+        writer.writeBatch(1, 3);
+        writer.writeBatch(4, 2);
+        writer.writeEndOfStream();
+
+        ByteBuffer stream = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        Table schemaMessage = readMessage(stream);
+        assertEquals(1, schemaMessage.getByte(1));
+        assertEquals(0, schemaMessage.getLong(3));
+        Table fields = schemaMessage.table(2);
+        assertEquals(0, fields.getShort(0));
+        int fieldCount = fields.vectorLength(1);
+        assertEquals(4, fieldCount);
+        List<String> names = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        for (int i = 0; i < fieldCount; i++) {
+            Table field = fields.vectorTable(1, i);
+            names.add(field.string(0));
+            types.add((int) field.getByte(2));
+            assertEquals(0, field.getByte(1));
+            assertEquals(0, field.vectorLength(5));
+        }
+        assertEquals(List.of("ID", "Email", "Date", "Colour"), names);
+        assertEquals(List.of(2, 5, 8, 5), types);
+        assertEquals(32, fields.vectorTable(1, 0).table(3).getInt(0));
+        assertEquals(1, fields.vectorTable(1, 0).table(3).getByte(1));
+        assertEquals(0, fields.vectorTable(1, 2).table(3).getShort(0));
+
+        List<Integer> ids = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        List<Integer> dates = new ArrayList<>();
+        List<String> colours = new ArrayList<>();
+        for (int expectedLength : new int[] { 3, 2 }) {
+            Table message = readMessage(stream);
+            assertEquals(3, message.getByte(1));
+            Table batch = message.table(2);
+            assertEquals(expectedLength, batch.getLong(0));
+            assertEquals(4, batch.vectorLength(1));
+            assertEquals(expectedLength, batch.vectorLong(1, 0));
+            assertEquals(0, batch.vectorLong(1, 1));
+            assertEquals(0, batch.vectorStart(2) % 8);
+
+            long bodyLength = message.getLong(3);
+            assertEquals(0, bodyLength % 8);
+            ByteBuffer body = stream.slice().order(ByteOrder.LITTLE_ENDIAN);
+            body.limit((int) bodyLength);
+            stream.position(stream.position() + (int) bodyLength);
+
+            assertEquals(10, batch.vectorLength(2));
+            ByteBuffer id = buffer(body, batch, 1);
+            ByteBuffer date = buffer(body, batch, 6);
+            for (int row = 0; row < expectedLength; row++) {
+                ids.add(id.getInt(4 * row));
+                dates.add(date.getInt(4 * row));
+            }
+            assertEquals(0, batch.vectorLong(2, 1), "validity bitmaps are omitted");
+            emails.addAll(strings(buffer(body, batch, 3), buffer(body, batch, 4), expectedLength));
+            colours.addAll(strings(buffer(body, batch, 8), buffer(body, batch, 9), expectedLength));
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5), ids);
+        assertEquals("email4@example.com", emails.get(3));
+        assertEquals(List.of(Math.toIntExact(DATE.toEpochDay())), dates.stream().distinct().toList());
+        assertEquals(List.of("red", "grün", "blue", "red", "grün"), colours);
+        assertEquals(-1, stream.getInt());
+        assertEquals(0, stream.getInt());
+        assertFalse(stream.hasRemaining());
+    }
+
+    /**
+     * Reads an encapsulated message and returns its {@code Message} table.
+     */
+    private static Table readMessage(ByteBuffer stream) {
+        assertEquals(0, stream.position() % 8);
+        assertEquals(-1, stream.getInt());
+        int length = stream.getInt();
+        assertEquals(0, length % 8);
+        ByteBuffer metadata = stream.slice().order(ByteOrder.LITTLE_ENDIAN);
+        metadata.limit(length);
+        stream.position(stream.position() + length);
+        Table message = new Table(metadata, metadata.getInt(0));
+        assertEquals(4, message.getShort(0));
+        return message;
+    }
+
+    private static ByteBuffer buffer(ByteBuffer body, Table batch, int index) {
+        long offset = batch.vectorLong(2, 2 * index);
+        long length = batch.vectorLong(2, 2 * index + 1);
+        assertEquals(0, offset % 8);
+        return body.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static List<String> strings(ByteBuffer offsets, ByteBuffer data, int count) {
+        List<String> values = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            int start = offsets.getInt(4 * row);
+            byte[] bytes = new byte[offsets.getInt(4 * row + 4) - start];
+            data.get(start, bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    /**
+     * A FlatBuffers table, read through its vtable.
+     */
+    private record Table(ByteBuffer buffer, int position) {
+
+        int field(int slot) {
+            int vtable = position - buffer.getInt(position);
+            int entry = 4 + 2 * slot;
+            assertTrue(entry < buffer.getShort(vtable), "field " + slot + " is missing");
+            int relative = buffer.getShort(vtable + entry);
+            assertNotEquals(0, relative, "field " + slot + " is missing");
+            return position + relative;
+        }
+
+        byte getByte(int slot) {
+            return buffer.get(field(slot));
+        }
+
+        short getShort(int slot) {
+            return buffer.getShort(field(slot));
+        }
+
+        int getInt(int slot) {
+            return buffer.getInt(field(slot));
+        }
+
+        long getLong(int slot) {
+            int field = field(slot);
+            assertEquals(0, field % 8);
+            return buffer.getLong(field);
+        }
+
+        Table table(int slot) {
+            int field = field(slot);
+            return new Table(buffer, field + buffer.getInt(field));
+        }
+
+        String string(int slot) {
+            int start = vectorStart(slot);
+            byte[] bytes = new byte[buffer.getInt(start - 4)];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int vectorLength(int slot) {
+            return buffer.getInt(vectorStart(slot) - 4);
+        }
+
+        int vectorStart(int slot) {
+            int field = field(slot);
+            return field + buffer.getInt(field) + 4;
+        }
+
+        Table vectorTable(int slot, int index) {
+            int element = vectorStart(slot) + 4 * index;
+            return new Table(buffer, element + buffer.getInt(element));
+        }
+
+        long vectorLong(int slot, int index) {
+            return buffer.getLong(vectorStart(slot) + 8 * index);
+        }
+    }
+}
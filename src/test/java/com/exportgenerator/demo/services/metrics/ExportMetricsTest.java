@@ -0,0 +1,83 @@
+package com.exportgenerator.demo.services.metrics;
+
+import com.exportgenerator.demo.services.ExportAbortedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ExportMetrics exportMetrics = new ExportMetrics(registry);
+
+    @Test
+    public void testSuccessfulExportIsRecorded() throws IOException {
+        ExportMetrics.Recording recording = exportMetrics.start("poi", "xlsx");
+        assertEquals(1, registry.get("export.in.flight").tags("engine", "poi", "format", "xlsx").gauge().value());
+
+        OutputStream out = recording.count(new ByteArrayOutputStream());
+        out.write(new byte[1000]);
+        out.write(1);
+        recording.succeeded(500);
+
+        assertEquals(0, registry.get("export.in.flight").gauge().value());
+        assertEquals(1, registry.get("export.duration").tag("outcome", "success").timer().count());
+        assertEquals(500, registry.get("export.rows").counter().count());
+        assertEquals(1001, registry.get("export.bytes").counter().count());
+        assertEquals(1, registry.get("export.throughput").summary().count());
+    }
+
+    @Test
+    public void testFirstSuccessfulExportIsTimedFromJvmStart() {
+        exportMetrics.start("poi", "xlsx").failed(new IllegalStateException("boom"));
+        assertTrue(registry.find("export.first.completed").timeGauges().isEmpty());
+
+        exportMetrics.start("poi", "xlsx").succeeded(10);
+        double first = registry.get("export.first.completed").timeGauge().value(TimeUnit.MILLISECONDS);
+        exportMetrics.start("ooxml", "xlsx").succeeded(10);
+
+        assertTrue(first > 0);
+        assertEquals(first, registry.get("export.first.completed").timeGauge().value(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testClientDisconnectIsCountedAsAborted() {
+        exportMetrics.start("ooxml", "xlsx").failed(new IOException("Broken pipe"));
+        exportMetrics.start("ooxml", "xlsx").failed(new IllegalStateException("boom"));
+
+        assertEquals(1, registry.get("export.failures").tag("reason", "aborted").counter().count());
+        assertEquals(1, registry.get("export.failures").tag("reason", "error").counter().count());
+        assertEquals(0, registry.get("export.in.flight").gauge().value());
+    }
+
+    @Test
+    public void testAbortsAreTaggedByCause() {
+        exportMetrics.start("poi", "xlsx").failed(new IOException("Connection reset by peer"));
+        exportMetrics.start("poi", "xlsx").failed(new IOException("Error generating Excel rows",
+                new ExportAbortedException(ExportAbortedException.Reason.TIMEOUT, "Export timed out")));
+
+        assertEquals(2, registry.get("export.failures").tag("reason", "aborted").counter().count());
+        assertEquals(1, registry.get("export.aborts").tag("cause", "disconnected").counter().count());
+        assertEquals(1, registry.get("export.aborts").tag("cause", "timeout").counter().count());
+    }
+
+    @Test
+    public void testPhasesAreTaggedByEngineAndFormat() {
+        exportMetrics.recordPhase("poi", "xlsx", ExportMetrics.PHASE_BUILD, 5_000_000);
+        exportMetrics.recordPhase("poi", "xlsx", ExportMetrics.PHASE_SPILL, -1);
+        exportMetrics.recordSpill("poi", 4096);
+
+        assertEquals(5, registry.get("export.phase").tags("engine", "poi", "phase", "build").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, registry.get("export.phase").tags("phase", "spill").timer()
+                .totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(4096, registry.get("export.spill.bytes").counter().count());
+    }
+}
@@ -0,0 +1,128 @@
+package com.exportgenerator.demo.services.poi;
+
+import com.exportgenerator.demo.services.metrics.ExportMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpillManagerTest {
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    public void tearDown() {
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+    }
+
+    @Test
+    public void testWorkbookSpillsIntoItsOwnDirectoryAndCleansUp() throws IOException {
+        SpillManager spillManager = spillManager(false, 0, 0);
+
+        try (SpillTrackingWorkbook workbook = spillManager.newWorkbook()) {
+            fill(workbook.createSheet("Data"), 100);
+            assertTrue(workbook.getSpillBytes() > 0);
+            assertEquals(workbook.getSpillBytes(), spillManager.bytesInUse());
+            assertEquals(workbook.getSpillBytes(),
+                    registry.get("export.spill.disk.bytes").gauge().value());
+            try (Stream<Path> files = Files.walk(directory)) {
+                assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(".xml")).count());
+            }
+            workbook.write(new ByteArrayOutputStream());
+        }
+
+        assertEquals(0, spillManager.bytesInUse());
+        assertEmpty(directory);
+    }
+
+    @Test
+    public void testCompressedSpillIsSmaller() throws IOException {
+        long plain;
+        try (SpillTrackingWorkbook workbook = spillManager(false, 0, 0).newWorkbook()) {
+            fill(workbook.createSheet("Data"), 1000);
+            plain = workbook.getSpillBytes();
+        }
+        try (SpillTrackingWorkbook workbook = spillManager(true, 0, 0).newWorkbook()) {
+            fill(workbook.createSheet("Data"), 1000);
+            assertTrue(workbook.isCompressTempFiles());
+            workbook.write(new ByteArrayOutputStream());
+            assertTrue(workbook.getSpillBytes() < plain / 4, workbook.getSpillBytes() + " vs " + plain);
+        }
+        assertEmpty(directory);
+    }
+
+    @Test
+    public void testPerExportQuotaStopsTheExport() throws IOException {
+        SpillManager spillManager = spillManager(false, 4096, 0);
+
+        try (SpillTrackingWorkbook workbook = spillManager.newWorkbook()) {
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> fill(workbook.createSheet("Data"), 10_000));
+            assertInstanceOf(SpillQuotaExceededException.class, e.getCause());
+        }
+
+        assertEquals(0, spillManager.bytesInUse());
+        assertEquals(1, registry.get("export.spill.quota.exceeded").tag("scope", "export").counter().count());
+        assertEmpty(directory);
+    }
+
+    @Test
+    public void testGlobalQuotaIsSharedByExports() throws IOException {
+        SpillManager spillManager = spillManager(false, 0, 256 * 1024);
+
+        try (SpillTrackingWorkbook first = spillManager.newWorkbook()) {
+            fill(first.createSheet("Data"), 200);
+            try (SpillTrackingWorkbook second = spillManager.newWorkbook()) {
+                assertThrows(RuntimeException.class, () -> fill(second.createSheet("Data"), 10_000));
+            }
+            assertEquals(first.getSpillBytes(), spillManager.bytesInUse());
+        }
+
+        assertEquals(1, registry.get("export.spill.quota.exceeded").tag("scope", "global").counter().count());
+    }
+
+    @Test
+    public void testStartupSweepDeletesOrphanedFiles() throws IOException {
+        Path orphan = Files.createDirectory(directory.resolve("export-1"));
+        Files.writeString(orphan.resolve("sheet-1.xml"), "<row/>");
+        Files.writeString(directory.resolve("poi-sxssf-template1.xlsx"), "");
+
+        spillManager(false, 0, 0).start();
+
+        assertEmpty(directory);
+    }
+
+    private SpillManager spillManager(boolean compress, long maxBytesPerExport, long maxBytes) {
+        return new SpillManager(directory, 10, compress, maxBytesPerExport, maxBytes, new ExportMetrics(registry));
+    }
+
+    private static void fill(Sheet sheet, int rows) {
+        for (int i = 0; i < rows; i++) {
+            Row row = sheet.createRow(i);
+            for (int column = 0; column < 10; column++) {
+                row.createCell(column).setCellValue("value " + i + "/" + column);
+            }
+        }
+    }
+
+    private static void assertEmpty(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.exportgenerator.demo.services.rowsource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class JdbcRowSourceTest {
+
+    private static final int ROWS = 5000;
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(64), note VARCHAR(64))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "Item <" + i + ">");
+                insert.setString(3, i % 10 == 0 ? null : "note " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE items");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testStreamsAllRows() throws IOException {
+        try (JdbcRowSource source = new JdbcRowSource(connection, "SELECT id, name, note FROM items ORDER BY id", 100)) {
+            assertArrayEquals(new String[] { "ID", "NAME", "NOTE" }, source.columnNames());
+            assertTrue(source.isNumeric(0));
+            assertFalse(source.isNumeric(1));
+
+            int rows = 0;
+            while (source.next()) {
+                rows++;
+                assertEquals(rows, source.getLong(0));
+                assertEquals("Item <" + rows + ">", source.getText(1).toString());
+                assertEquals(rows % 10 == 0, source.isNull(2));
+            }
+            assertEquals(ROWS, rows);
+        }
+    }
+
+    @Test
+    public void testUsesForwardOnlyCursorWithFetchSize() throws IOException, SQLException {
+        try (JdbcRowSource source = new JdbcRowSource(connection, "SELECT id FROM items", 250)) {
+            ResultSet resultSet = source.resultSet();
+            assertEquals(ResultSet.TYPE_FORWARD_ONLY, resultSet.getType());
+            assertEquals(ResultSet.CONCUR_READ_ONLY, resultSet.getConcurrency());
+            assertEquals(250, resultSet.getStatement().getFetchSize());
+            assertFalse(connection.getAutoCommit());
+        }
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    public void testInvalidQueryFails() throws SQLException {
+        assertThrows(IOException.class, () -> new JdbcRowSource(connection, "SELECT missing FROM items", 100));
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    public void testFailedQueryClosesStatementAndRestoresAutoCommit() throws SQLException {
+        List<PreparedStatement> prepared = new ArrayList<>();
+        Connection tracked = spy(connection);
+        doAnswer(invocation -> {
+            PreparedStatement statement = (PreparedStatement) invocation.callRealMethod();
+            prepared.add(statement);
+            return statement;
+        }).when(tracked).prepareStatement(anyString(), anyInt(), anyInt());
+
+        // Prepares fine and fails when executed
+        assertThrows(IOException.class, () -> new JdbcRowSource(tracked, "SELECT CAST(name AS INT) FROM items", 100));
+
+        assertEquals(1, prepared.size());
+        assertTrue(prepared.get(0).isClosed());
+        assertTrue(connection.getAutoCommit());
+    }
+}
@@ -0,0 +1,59 @@
+package com.exportgenerator.demo.services.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportSchemaTest {
+
+    @Test
+    public void testRejectsInvalidColumns() {
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(
+                ExportColumn.rowIndex("ID"), ExportColumn.indexedText("ID", "Name ", ""))));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(ExportColumn.rowIndex(" "))));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(
+                new ExportColumn("ID", ColumnType.TEXT, ExportColumn.Generator.ROW_INDEX, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(
+                new ExportColumn("Date", ColumnType.DATE, ExportColumn.Generator.EXPORT_DATE, "on ", null, null))));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(
+                ExportColumn.cycle("Colour", List.of()))));
+        assertThrows(IllegalArgumentException.class, () -> new ExportSchema(List.of(
+                new ExportColumn("Name", ColumnType.TEXT, ExportColumn.Generator.INDEXED_TEXT, "Name ", null,
+                        List.of("unused")))));
+    }
+
+    @Test
+    public void testPlanResolvesEveryGenerator() {
+        ExportSchema schema = new ExportSchema(List.of(
+                ExportColumn.rowIndex("ID"),
+                ExportColumn.indexedText("Email", "email", "@example.com"),
+                ExportColumn.exportDate("Date"),
+                ExportColumn.cycle("Colour", List.of("red", "green", "blue"))));
+
+        RowPlan plan = schema.compile(LocalDate.of(2024, 1, 15));
+
+        assertArrayEquals(new String[] { "ID", "Email", "Date", "Colour" }, plan.columnNames());
+        assertTrue(plan.isNumeric(0));
+        assertFalse(plan.isNumeric(2));
+        assertEquals("2024-01-15", plan.isoDate());
+        assertEquals(45306, plan.excelDate());
+        assertEquals("red", plan.cycleValue(3, 1));
+        assertEquals("green", plan.cycleValue(3, 5));
+        assertEquals("email42@example.com|2024-01-15|blue", text(plan, 42, 1, 2, 3));
+    }
+
+    private static String text(RowPlan plan, int rowIndex, int... columns) {
+        StringBuilder text = new StringBuilder();
+        for (int column : columns) {
+            if (text.length() > 0) {
+                text.append('|');
+            }
+            plan.appendText(column, rowIndex, text);
+        }
+        return text.toString();
+    }
+}